@@ -1,6 +1,7 @@
 plugins {
     id("java-library")
     id("maven-publish")
+    alias(libs.plugins.jmh)
     alias(libs.plugins.jreleaser)
     alias(libs.plugins.sonar)
 }
@@ -29,6 +30,10 @@ java {
 
 dependencies {
     compileOnly(libs.annotations)
+    testCompileOnly(libs.annotations)
+    testImplementation(platform(libs.junit.bom))
+    testImplementation(libs.bundles.junit)
+    testRuntimeOnly(libs.junit.jupiter.engine)
 }
 
 // Set Gradle version
@@ -43,6 +48,67 @@ tasks.withType<Javadoc> {
     }
 }
 
+// Benchmarks in `src/jmh/java`, run with `./gradlew jmh` (add `--offline` once dependencies are cached)
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    resultFormat.set("JSON")
+    // The corpus benchmark uses the doclet runner from the tests
+    includeTests.set(true)
+}
+
+// End-to-end benchmark over generated corpora, e.g. `./gradlew corpusBenchmark --args="--classes 100,10000"`
+tasks.register<JavaExec>("corpusBenchmark") {
+    group = "benchmark"
+    description = "Runs the doclet over generated source corpora and reports time, memory and output size."
+    classpath = sourceSets["jmh"].runtimeClasspath
+    mainClass.set("org.pageseeder.xmldoclet.CorpusBenchmark")
+    workingDir = projectDir
+    maxHeapSize = "4g"
+}
+
+tasks.test {
+    useJUnitPlatform {
+        excludeTags("allocation", "corpus")
+    }
+}
+
+// Fails when the bytes allocated per class exceed the budget recorded for the JDK or when there is no
+// budget, runs on JDK 17 unless `-PallocationJdk=` is specified, override the budget with `-PclassBudget=`
+// and `-PsaveBudget=`
+tasks.register<Test>("allocationTest") {
+    group = "verification"
+    description = "Checks the bytes allocated per class processed against the budget for the JDK."
+    testClassesDirs = sourceSets["test"].output.classesDirs
+    classpath = sourceSets["test"].runtimeClasspath
+    useJUnitPlatform {
+        includeTags("allocation")
+    }
+    javaLauncher.set(javaToolchains.launcherFor {
+        languageVersion.set(JavaLanguageVersion.of((findProperty("allocationJdk") as String?) ?: "17"))
+    })
+    systemProperty("projectDir", projectDir.absolutePath)
+    findProperty("classBudget")?.let { systemProperty("classBudget", it) }
+    findProperty("saveBudget")?.let { systemProperty("saveBudget", it) }
+    testLogging {
+        showStandardStreams = true
+    }
+}
+
+// Compares the output of each performance mode over a generated corpus, override its size with `-PgoldenClasses=`
+tasks.register<Test>("goldenCorpusTest") {
+    group = "verification"
+    description = "Checks that the performance options do not change the XML output for a generated corpus."
+    testClassesDirs = sourceSets["test"].output.classesDirs
+    classpath = sourceSets["test"].runtimeClasspath
+    useJUnitPlatform {
+        includeTags("corpus")
+    }
+    findProperty("goldenClasses")?.let { systemProperty("goldenClasses", it) }
+}
+
 publishing {
     publications {
         create<MavenPublication>("maven") {
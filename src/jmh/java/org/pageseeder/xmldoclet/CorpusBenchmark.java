@@ -0,0 +1,125 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * End-to-end benchmark of the doclet over generated corpora of increasing size.
+ *
+ * <p>For each corpus size and output mode, the doclet is run in-process and the wall time, peak heap,
+ * allocated bytes, allocation rate and output size are reported.
+ *
+ * <p>Usage (all arguments are optional):
+ * <pre>
+ * --classes 100,1000,10000  number of classes in each corpus
+ * --members 10              members per class
+ * --sentences 3             sentences per comment
+ * --annotations 1           annotations per class and member (max 4)
+ * --tags 1                  custom tags per class comment
+ * --documented 100          percentage of documented classes and members
+ * --modes single,multiple,subfolders
+ * --warmup 1                runs discarded before measuring
+ * --runs 1                  measured runs for each configuration
+ * --dir build/corpus        working directory
+ * --cache none              render cache directory, filled by the warmup runs
+ * </pre>
+ *
+ * <p>The generated sources and output are kept in the working directory.
+ *
+ * @author agent
+ */
+public final class CorpusBenchmark {
+
+  /**
+   * The doclet options for each output mode.
+   */
+  static final Map<String, List<String>> MODES = new LinkedHashMap<>();
+  static {
+    MODES.put("single", List.of());
+    MODES.put("multiple", List.of("-multiple"));
+    MODES.put("subfolders", List.of("-multiple", "-subfolders"));
+  }
+
+  private CorpusBenchmark() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    Map<String, String> arguments = parse(args);
+    CorpusGenerator generator = new CorpusGenerator();
+    generator.members = Integer.parseInt(arguments.getOrDefault("members", "10"));
+    generator.sentences = Integer.parseInt(arguments.getOrDefault("sentences", "3"));
+    generator.annotations = Integer.parseInt(arguments.getOrDefault("annotations", "1"));
+    generator.tags = Integer.parseInt(arguments.getOrDefault("tags", "1"));
+    generator.documented = Integer.parseInt(arguments.getOrDefault("documented", "100"));
+    int warmup = Integer.parseInt(arguments.getOrDefault("warmup", "1"));
+    int runs = Integer.parseInt(arguments.getOrDefault("runs", "1"));
+    File dir = new File(arguments.getOrDefault("dir", "build/corpus"));
+    String[] modes = arguments.getOrDefault("modes", String.join(",", MODES.keySet())).split(",");
+    String cache = arguments.get("cache");
+
+    DocletRunner runner = new DocletRunner();
+    System.out.printf(Locale.ROOT, "%-8s %-11s %10s %10s %12s %10s %12s %8s%n",
+        "classes", "mode", "time(ms)", "heap(MB)", "alloc(MB)", "MB/s", "output(KB)", "files");
+    for (String count : arguments.getOrDefault("classes", "100,1000").split(",")) {
+      generator.classes = Integer.parseInt(count.trim());
+      File sources = new File(dir, "src-" + generator.classes);
+      DocletRunner.delete(sources.toPath());
+      List<File> files = generator.generate(sources);
+      System.err.println("Corpus: " + generator.describe());
+      for (String mode : modes) {
+        List<String> options = new ArrayList<>(MODES.get(mode.trim()));
+        options.add("-tag");
+        options.add(CorpusGenerator.CUSTOM_TAG + ":a:To do");
+        if (cache != null) {
+          options.add("-cache");
+          options.add(cache);
+        }
+        File output = new File(dir, "out-" + generator.classes + "-" + mode);
+        for (int i = 0; i < warmup; i++) {
+          runner.run(files, output, options);
+        }
+        for (int i = 0; i < runs; i++) {
+          DocletRunner.Result result = runner.run(files, output, options);
+          if (!result.success) {
+            System.err.println(result.log);
+          }
+          System.out.printf(Locale.ROOT, "%-8d %-11s %10.1f %10.1f %12.1f %10.1f %12.1f %8d%n",
+              generator.classes, mode, result.time / 1_000_000.0, result.peakHeap / 1_048_576.0,
+              result.allocated / 1_048_576.0, result.allocationRate(), result.bytes / 1024.0, result.files);
+        }
+      }
+    }
+  }
+
+  /**
+   * Parses arguments as <code>--name value</code> pairs.
+   */
+  static Map<String, String> parse(String[] args) {
+    Map<String, String> arguments = new LinkedHashMap<>();
+    for (int i = 0; i + 1 < args.length; i += 2) {
+      if (!args[i].startsWith("--")) throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+      arguments.put(args[i].substring(2), args[i + 1]);
+    }
+    return arguments;
+  }
+
+}
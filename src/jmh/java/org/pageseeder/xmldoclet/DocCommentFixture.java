@@ -0,0 +1,210 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import com.sun.source.doctree.DocCommentTree;
+import com.sun.source.doctree.LinkTree;
+import com.sun.source.util.DocTreePath;
+import com.sun.source.util.DocTreeScanner;
+import com.sun.source.util.DocTrees;
+import com.sun.source.util.JavacTask;
+import jdk.javadoc.doclet.Reporter;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses a realistic Java source file in memory to provide doc comment trees to the benchmarks.
+ *
+ * @author agent
+ */
+final class DocCommentFixture {
+
+  /**
+   * A class documented the way most code is: paragraphs, lists, links, code and block tags.
+   */
+  private static final String SOURCE = String.join("\n",
+      "package org.example;",
+      "",
+      "import java.util.List;",
+      "import java.util.Map;",
+      "",
+      "/**",
+      " * A registry of named values with a <b>fluent</b> API.",
+      " *",
+      " * <p>Values are stored in insertion order and can be looked up by name using {@link #get(String)}",
+      " * or {@linkplain #find(String) find}. Names are compared with {@link String#equals(Object)}.",
+      " *",
+      " * <ul>",
+      " *   <li>Use {@code put} to add a value;</li>",
+      " *   <li>use {@code remove} to remove it;</li>",
+      " *   <li>use {@link java.util.Map#clear() clear} to start again.</li>",
+      " * </ul>",
+      " *",
+      " * <table>",
+      " *   <tr><th>Method</th><th>Complexity</th></tr>",
+      " *   <tr><td>get</td><td>O(1)</td></tr>",
+      " *   <tr><td>find</td><td>O(n) &amp; more</td></tr>",
+      " * </table>",
+      " *",
+      " * <pre>{@code Registry r = new Registry(); r.put(\"a\", 1);}</pre>",
+      " *",
+      " * @author Christophe Lauret",
+      " * @version 1.0",
+      " * @since 0.5",
+      " * @see java.util.Map",
+      " */",
+      "public class Registry {",
+      "",
+      "  /**",
+      "   * The maximum number of values, see {@link #size()}.",
+      "   */",
+      "  public static final int MAX = 1024;",
+      "",
+      "  /**",
+      "   * Returns the value with the specified name.",
+      "   *",
+      "   * <p>This method never returns {@code null} for a name which was {@link #put(String, Object) put}",
+      "   * with a non-null value.",
+      "   *",
+      "   * @param name The name of the value, must not be <code>null</code>",
+      "   * @return The value or <code>null</code> if there is no value with that name.",
+      "   * @throws NullPointerException If the name is <code>null</code>",
+      "   */",
+      "  public Object get(String name) { return null; }",
+      "",
+      "  /**",
+      "   * Finds the values with names starting with the specified prefix.",
+      "   *",
+      "   * @param prefix The prefix to look for.",
+      "   * @return The matching values, never <code>null</code>.",
+      "   */",
+      "  public List<Object> find(String prefix) { return null; }",
+      "",
+      "  /**",
+      "   * Adds a value to this registry, replacing any value with the same name.",
+      "   *",
+      "   * @param name  The name of the value",
+      "   * @param value The value to store; use {@link #remove(String)} to remove a value.",
+      "   * @return this registry for chaining.",
+      "   */",
+      "  public Registry put(String name, Object value) { return this; }",
+      "",
+      "  /**",
+      "   * Removes the value with the specified name.",
+      "   *",
+      "   * @param name The name of the value",
+      "   */",
+      "  public void remove(String name) { }",
+      "",
+      "  /**",
+      "   * @return the number of values in this registry, at most {@value #MAX}.",
+      "   */",
+      "  public int size() { return 0; }",
+      "",
+      "  /**",
+      "   * @return a copy of the values as a map.",
+      "   */",
+      "  public Map<String, Object> toMap() { return null; }",
+      "",
+      "}",
+      "");
+
+  /**
+   * A reporter which ignores all diagnostics.
+   */
+  static final Reporter REPORTER = new Reporter() {
+    @Override
+    public void print(Diagnostic.Kind kind, String msg) {
+    }
+
+    @Override
+    public void print(Diagnostic.Kind kind, DocTreePath path, String msg) {
+    }
+
+    @Override
+    public void print(Diagnostic.Kind kind, Element element, String msg) {
+    }
+  };
+
+  /**
+   * The documented elements.
+   */
+  final List<Element> elements = new ArrayList<>();
+
+  /**
+   * The doc comment of each element, in the same order.
+   */
+  final List<DocCommentTree> comments = new ArrayList<>();
+
+  /**
+   * All the <code>{@literal @}link</code> and <code>{@literal @}linkplain</code> tags found in the comments.
+   */
+  final List<LinkTree> links = new ArrayList<>();
+
+  private DocCommentFixture() {
+  }
+
+  /**
+   * Compiles the source in memory and collects the doc comments.
+   *
+   * @return the fixture
+   *
+   * @throws Exception If the source could not be analysed.
+   */
+  static DocCommentFixture load() throws Exception {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    JavaFileObject source = new SimpleJavaFileObject(URI.create("string:///org/example/Registry.java"), JavaFileObject.Kind.SOURCE) {
+      @Override
+      public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+        return SOURCE;
+      }
+    };
+    JavacTask task = (JavacTask) compiler.getTask(null, null, null, List.of("-proc:none"), null, List.of(source));
+    DocTrees trees = DocTrees.instance(task);
+    DocCommentFixture fixture = new DocCommentFixture();
+    for (Element type : task.analyze()) {
+      fixture.add(trees, type);
+      for (Element member : ((TypeElement) type).getEnclosedElements()) {
+        fixture.add(trees, member);
+      }
+    }
+    return fixture;
+  }
+
+  private void add(DocTrees trees, Element element) {
+    DocCommentTree comment = trees.getDocCommentTree(element);
+    if (comment == null) return;
+    this.elements.add(element);
+    this.comments.add(comment);
+    new DocTreeScanner<Void, Void>() {
+      @Override
+      public Void visitLink(LinkTree node, Void unused) {
+        DocCommentFixture.this.links.add(node);
+        return super.visitLink(node, unused);
+      }
+    }.scan(comment, null);
+  }
+
+}
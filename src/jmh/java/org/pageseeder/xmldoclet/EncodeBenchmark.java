@@ -0,0 +1,57 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the escaping of text and attribute values.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EncodeBenchmark {
+
+  /**
+   * Plain text is the common case, escaped text has a special character every few words.
+   */
+  @Param({"plain", "escaped"})
+  public String text;
+
+  private String input;
+
+  @Setup
+  public void setup() {
+    this.input = "plain".equals(this.text)
+        ? "Returns the value with the specified name or null if there is no value with that name."
+        : "Returns the <value> with the \"specified\" name & 'type' or null if there is no value > 0.";
+  }
+
+  @Benchmark
+  public String encodeElement() {
+    return XMLNode.encodeElement(this.input);
+  }
+
+  @Benchmark
+  public String encodeAttribute() {
+    return XMLNode.encodeAttribute(this.input);
+  }
+
+}
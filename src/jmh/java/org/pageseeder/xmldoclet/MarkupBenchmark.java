@@ -0,0 +1,68 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import com.sun.source.doctree.DocCommentTree;
+import com.sun.source.doctree.LinkTree;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the rendering of doc comments as markup and of links.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MarkupBenchmark {
+
+  private DocCommentFixture fixture;
+
+  private Options options;
+
+  @Setup
+  public void setup() throws Exception {
+    this.fixture = DocCommentFixture.load();
+    this.options = new Options(DocCommentFixture.REPORTER);
+  }
+
+  /**
+   * Renders the full body of every comment in the fixture.
+   */
+  @Benchmark
+  public void markup(Blackhole blackhole) {
+    List<DocCommentTree> comments = this.fixture.comments;
+    for (int i = 0; i < comments.size(); i++) {
+      String markup = Markup.toString(comments.get(i).getFullBody(), this.fixture.elements.get(i), this.options, DocCommentFixture.REPORTER, true);
+      blackhole.consume(markup);
+    }
+  }
+
+  /**
+   * Renders every link in the fixture.
+   */
+  @Benchmark
+  public void linkString(Blackhole blackhole) {
+    for (LinkTree link : this.fixture.links) {
+      blackhole.consume(InlineTag.toLinkString(link, "link"));
+    }
+  }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import com.sun.source.util.JavacTask;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Benchmarks writing the modifiers of the members of a large class as attributes, comparing the
+ * bitmask tables with the set of boolean modifiers collected from a stream used previously.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ModifiersBenchmark {
+
+  private static final Set<Modifier> BOOLEAN_MODIFIERS = EnumSet.complementOf(EnumSet.of(Modifier.PRIVATE, Modifier.PUBLIC, Modifier.PROTECTED));
+
+  private static final String[] MODIFIERS = {
+      "public static final", "private", "protected", "", "public", "private static", "public final", "protected static"
+  };
+
+  @Param({"100", "1000"})
+  public int members;
+
+  private final List<Element> elements = new ArrayList<>();
+
+  @Setup(Level.Trial)
+  public void setup() {
+    StringBuilder source = new StringBuilder("package org.example;\n\npublic class Large {\n");
+    for (int i = 0; i < this.members; i++) {
+      String modifiers = MODIFIERS[i % MODIFIERS.length];
+      switch (i % 3) {
+        case 0:
+          source.append("  ").append(modifiers).append(" int field").append(i).append(" = ").append(i).append(";\n");
+          break;
+        case 1:
+          source.append("  ").append(modifiers).append(" synchronized void method").append(i).append("() {}\n");
+          break;
+        default:
+          source.append("  ").append(modifiers).append(" String method").append(i).append("(String s) { return s; }\n");
+      }
+    }
+    source.append("}\n");
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///org/example/Large.java"), JavaFileObject.Kind.SOURCE) {
+      @Override
+      public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+        return source;
+      }
+    };
+    JavacTask task = (JavacTask) compiler.getTask(null, null, null, List.of("-proc:none"), null, List.of(file));
+    try {
+      for (Element type : task.analyze()) {
+        this.elements.add(type);
+        this.elements.addAll(((TypeElement) type).getEnclosedElements());
+      }
+    } catch (IOException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  @Benchmark
+  public void bitmask(Blackhole blackhole) {
+    for (Element element : this.elements) {
+      XMLNode node = new XMLNode("member");
+      Modifiers.toAttributes(element, node);
+      blackhole.consume(node);
+    }
+  }
+
+  @Benchmark
+  public void streams(Blackhole blackhole) {
+    for (Element element : this.elements) {
+      XMLNode node = new XMLNode("member");
+      node.attribute("visibility", getVisibility(element));
+      for (Modifier modifier : toBooleanModifiers(element)) {
+        node.attribute(modifier.name().toLowerCase(), "true");
+      }
+      blackhole.consume(node);
+    }
+  }
+
+  private static String getVisibility(Element element) {
+    Set<Modifier> modifiers = element.getModifiers();
+    if (modifiers.contains(Modifier.PRIVATE)) return "private";
+    if (modifiers.contains(Modifier.PROTECTED)) return "protected";
+    if (modifiers.contains(Modifier.PUBLIC)) return "public";
+    return "package-private";
+  }
+
+  private static Set<Modifier> toBooleanModifiers(Element element) {
+    return element.getModifiers().stream()
+        .filter(BOOLEAN_MODIFIERS::contains)
+        .collect(Collectors.toUnmodifiableSet());
+  }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks matching qualified names against an increasing number of include patterns mixing
+ * literal segments, <code>*</code> globs and <code>**</code> segments, and an exclude pattern.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NameFilterBenchmark {
+
+  private static final String[] PACKAGES = {"org.pageseeder", "com.example", "net.sample", "io.project"};
+
+  @Param({"10", "100", "1000"})
+  public int patterns;
+
+  private final List<String> names = new ArrayList<>();
+
+  private NameFilter filter = new NameFilter(Collections.emptyList(), Collections.emptyList());
+
+  @Setup(Level.Trial)
+  public void setup() {
+    Random random = new Random(42);
+    List<String> includes = new ArrayList<>();
+    for (int i = 0; i < this.patterns; i++) {
+      String pkg = PACKAGES[i % PACKAGES.length];
+      switch (i % 3) {
+        case 0:
+          includes.add(pkg + ".module" + i + ".*");
+          break;
+        case 1:
+          includes.add(pkg + ".**.*Impl" + i);
+          break;
+        default:
+          includes.add("*Service" + i + "*");
+      }
+    }
+    this.filter = new NameFilter(includes, Collections.singletonList("**.internal.**"));
+    for (int i = 0; i < 1000; i++) {
+      int n = random.nextInt(this.patterns * 2);
+      String pkg = PACKAGES[random.nextInt(PACKAGES.length)];
+      String sub = random.nextInt(4) == 0 ? ".internal" : ".api";
+      switch (i % 3) {
+        case 0:
+          this.names.add(pkg + ".module" + n + ".Type" + i);
+          break;
+        case 1:
+          this.names.add(pkg + sub + ".deep.DefaultImpl" + n);
+          break;
+        default:
+          this.names.add(pkg + sub + ".UserService" + n + "Bean");
+      }
+    }
+  }
+
+  @Benchmark
+  public void matches(Blackhole blackhole) {
+    for (String name : this.names) {
+      blackhole.consume(this.filter.matches(name));
+    }
+  }
+
+}
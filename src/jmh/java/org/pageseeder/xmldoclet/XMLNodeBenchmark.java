@@ -0,0 +1,91 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the serialization of synthetic node trees of varying depth and width.
+ *
+ * @author agent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class XMLNodeBenchmark {
+
+  @Param({"2", "4", "6"})
+  public int depth;
+
+  @Param({"2", "8"})
+  public int width;
+
+  private XMLNode root;
+
+  private File dir;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    this.root = build("root", this.depth);
+    this.dir = Files.createTempDirectory("xmlnode-bench").toFile();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    File[] files = this.dir.listFiles();
+    if (files != null) {
+      for (File f : files) {
+        f.delete();
+      }
+    }
+    this.dir.delete();
+  }
+
+  @Benchmark
+  public String serialize() {
+    return this.root.toString("");
+  }
+
+  @Benchmark
+  public void save() throws DocletException {
+    this.root.save(this.dir, "bench.xml", StandardCharsets.UTF_8, "");
+  }
+
+  /**
+   * Builds a tree with nodes similar to those produced by the doclet.
+   */
+  private XMLNode build(String name, int levels) {
+    XMLNode node = new XMLNode(name);
+    node.attribute("name", "org.example.Sample" + levels);
+    node.attribute("visibility", "public");
+    node.attribute("type", "List<String>");
+    if (levels == 0) {
+      node.markup("<p>Returns the value with the <b>specified</b> name &amp; type.</p>");
+    } else {
+      for (int i = 0; i < this.width; i++) {
+        node.child(build(i % 2 == 0 ? "method" : "field", levels - 1));
+      }
+    }
+    return node;
+  }
+
+}
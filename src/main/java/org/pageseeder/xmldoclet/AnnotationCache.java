@@ -0,0 +1,82 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import javax.lang.model.element.AnnotationMirror;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Keeps the serialized XML of the annotations rendered during a run, so that identical annotations
+ * are only rendered once and share the same node.
+ *
+ * <p>Annotations without element values, such as <code>{@literal @}Override</code> or
+ * <code>{@literal @}Deprecated</code>, are looked up by their type without rendering them. Other
+ * annotations are looked up by their source form, which includes the type and the element values.
+ *
+ * <p>Annotation nodes are always serialized at the same depth, under the "annotations" node of a class
+ * or package which is a child of the root node. The shared nodes must not be modified.
+ *
+ * <p>Instances are not thread-safe and must only be used for a single run, since elements are not
+ * shared between runs.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+final class AnnotationCache {
+
+  /**
+   * The indentation of annotation nodes: root, class or package, annotations.
+   */
+  private static final String TABS = "\t\t\t";
+
+  /**
+   * Serialized annotation nodes by annotation type or source form.
+   */
+  private final Map<Object, XMLNode> fragments = new HashMap<>();
+
+  /**
+   * Returns the node of the specified annotation, rendering it if it is not in the cache.
+   *
+   * @param annotation The annotation
+   * @param renderer   Renders the annotation node
+   *
+   * @return a serialized node with the same output as the rendered node.
+   */
+  XMLNode get(AnnotationMirror annotation, Function<AnnotationMirror, XMLNode> renderer) {
+    Object key = annotation.getElementValues().isEmpty()
+        ? annotation.getAnnotationType().asElement()
+        : annotation.toString();
+    XMLNode fragment = this.fragments.get(key);
+    if (fragment == null) {
+      XMLNode node = renderer.apply(annotation);
+      fragment = XMLNode.raw(node.getName(), node.getAttribute("name"), node.toString(TABS), node.size());
+      this.fragments.put(key, fragment);
+    }
+    return fragment;
+  }
+
+  /**
+   * @return the number of distinct annotations rendered.
+   */
+  int size() {
+    return this.fragments.size();
+  }
+
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Records the class and package files written when multiple files are used with the
+ * <code>-resume</code> option, so that an interrupted run can be resumed.
+ *
+ * <p>The checkpoint is a text file in the output directory listing the kind and name of each file
+ * once it has been written. It is flushed periodically rather than after each file, so a run which
+ * dies may regenerate the last few files. The checkpoint is deleted once the index has been saved.
+ *
+ * <p>When resuming, entries whose file no longer exists are ignored, so that the files are generated
+ * again. The references of the files already written are kept in order, so that the index can list
+ * them before the files written by the current run, in the same order as a run which was not
+ * interrupted.
+ *
+ * <p>The first line of the checkpoint is a hash of the fingerprint of the options. A checkpoint left
+ * by a run with other options or another build of the doclet is discarded, so that all the files are
+ * generated again.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+final class Checkpoint implements Closeable {
+
+  /**
+   * The name of the checkpoint file.
+   */
+  static final String NAME = ".xmldoclet-checkpoint";
+
+  /**
+   * The minimum time between two flushes of the checkpoint.
+   */
+  private static final long FLUSH_INTERVAL_MS = 1000;
+
+  private final File file;
+
+  private final boolean discarded;
+
+  private final Set<String> written;
+
+  private final List<XMLNode> references;
+
+  private final Writer out;
+
+  private long lastFlush;
+
+  private Checkpoint(File file, String header, Map<String, XMLNode> entries, boolean discarded) throws IOException {
+    this.file = file;
+    this.discarded = discarded;
+    this.written = entries.keySet();
+    this.references = new ArrayList<>(entries.values());
+    // Rewrite the valid entries, the last line may have been cut short
+    this.out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+    this.out.write(header + '\n');
+    for (String entry : this.written) {
+      this.out.write(entry + '\n');
+    }
+    this.out.flush();
+    this.lastFlush = System.currentTimeMillis();
+  }
+
+  /**
+   * Opens the checkpoint in the specified output directory, keeping the entries of an existing checkpoint
+   * written with the same options.
+   *
+   * @param dir         The output directory
+   * @param subfolders  Whether files are organised in subfolders
+   * @param fingerprint The fingerprint of the options affecting the output
+   *
+   * @return The checkpoint ready to record the files written.
+   *
+   * @throws DocletException If the checkpoint could not be read or created.
+   */
+  static Checkpoint open(File dir, boolean subfolders, String fingerprint) throws DocletException {
+    File file = new File(dir, NAME);
+    String header = "# " + hash(fingerprint);
+    try {
+      Map<String, XMLNode> entries = new LinkedHashMap<>();
+      boolean discarded = file.exists() && !load(file, dir, subfolders, header, entries);
+      Files.createDirectories(dir.toPath());
+      return new Checkpoint(file, header, entries, discarded);
+    } catch (IOException ex) {
+      throw new DocletException(null, "Unable to open checkpoint: "+file.getAbsolutePath(), ex);
+    }
+  }
+
+  /**
+   * Indicates whether the file of the specified class or package was written by a previous run.
+   *
+   * @param kind The kind of node, "class" or "package"
+   * @param name The qualified name of the class or package
+   *
+   * @return <code>true</code> if it was written; <code>false</code> otherwise.
+   */
+  boolean contains(String kind, CharSequence name) {
+    return !this.written.isEmpty() && this.written.contains(kind + ' ' + name);
+  }
+
+  /**
+   * @return <code>true</code> if an existing checkpoint was discarded because its options differ;
+   *         <code>false</code> otherwise.
+   */
+  boolean isDiscarded() {
+    return this.discarded;
+  }
+
+  /**
+   * @return the number of files written by previous runs.
+   */
+  int size() {
+    return this.written.size();
+  }
+
+  /**
+   * Records that the file of the specified class or package node was written.
+   *
+   * @param node The class or package node
+   *
+   * @throws IOException If the checkpoint could not be written.
+   */
+  void add(XMLNode node) throws IOException {
+    this.out.write(node.getName() + ' ' + node.getAttribute("name") + '\n');
+    long now = System.currentTimeMillis();
+    if (now - this.lastFlush >= FLUSH_INTERVAL_MS) {
+      this.out.flush();
+      this.lastFlush = now;
+    }
+  }
+
+  /**
+   * @return the references to the files written by previous runs, in order.
+   */
+  List<XMLNode> references() {
+    return Collections.unmodifiableList(this.references);
+  }
+
+  /**
+   * Closes and deletes the checkpoint once the output is complete.
+   *
+   * @throws IOException If the checkpoint could not be deleted.
+   */
+  void delete() throws IOException {
+    close();
+    Files.deleteIfExists(this.file.toPath());
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.out.close();
+  }
+
+  /**
+   * Loads the entries of the existing checkpoint whose file still exists.
+   *
+   * @return <code>false</code> if the checkpoint was written with other options; <code>true</code> otherwise.
+   */
+  private static boolean load(File file, File dir, boolean subfolders, String header, Map<String, XMLNode> entries) throws IOException {
+    String content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    if (!content.startsWith(header + '\n')) return false;
+    int start = header.length() + 1;
+    int end;
+    while ((end = content.indexOf('\n', start)) >= 0) {
+      String line = content.substring(start, end);
+      start = end + 1;
+      int space = line.indexOf(' ');
+      if (space <= 0) continue;
+      XMLNode ref = IndexFile.toReference(line.substring(0, space), line.substring(space + 1), subfolders);
+      if (new File(dir, ref.getAttribute("xlink:href")).exists()) {
+        entries.putIfAbsent(line, ref);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the SHA-256 hash of the fingerprint as a hexadecimal string.
+   */
+  private static String hash(String fingerprint) {
+    try {
+      byte[] bytes = MessageDigest.getInstance("SHA-256").digest(fingerprint.getBytes(StandardCharsets.UTF_8));
+      StringBuilder hex = new StringBuilder(bytes.length * 2);
+      for (byte b : bytes) {
+        hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException("SHA-256 is not available", ex);
+    }
+  }
+
+}
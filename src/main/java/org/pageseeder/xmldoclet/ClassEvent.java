@@ -0,0 +1,49 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for each class processed by the doclet.
+ *
+ * <p>The duration of the event covers the construction of the class node, including the rendering of
+ * its comments.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+@Name("org.pageseeder.xmldoclet.Class")
+@Label("Class Processed")
+@Category("XML Doclet")
+@Description("A class processed by the XML doclet")
+final class ClassEvent extends Event {
+
+  @Label("Class Name")
+  @Description("The fully qualified name of the class")
+  String className;
+
+  @Label("Members")
+  @Description("The number of fields, constructors and methods in the class")
+  int members;
+
+}
@@ -18,7 +18,6 @@ package org.pageseeder.xmldoclet;
 import com.sun.source.doctree.DocTree;
 import com.sun.source.doctree.UnknownBlockTagTree;
 import com.sun.source.doctree.UnknownInlineTagTree;
-import jdk.javadoc.doclet.Taglet;
 import org.eclipse.jdt.annotation.Nullable;
 
 import javax.lang.model.element.Element;
@@ -32,7 +31,7 @@ import java.util.*;
  * @version 1.0
  * @since 1.0
  */
-public final class CustomTag implements Taglet {
+public final class CustomTag implements ThreadSafeTaglet {
 
   /**
    * The custom tag must be a valid XML name regex per XML 1.0 spec
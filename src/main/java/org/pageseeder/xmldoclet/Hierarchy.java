@@ -0,0 +1,177 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * The class hierarchy of the documented classes: the superclass and interfaces of each class and its
+ * depth in the hierarchy.
+ *
+ * <p>The depth of a class is the number of superclasses above it, so <code>java.lang.Object</code> is
+ * at depth 0 and the classes extending it directly at depth 1. The depth of an interface is the length
+ * of the longest path to an interface without superinterfaces, which is at depth 0. Supertypes outside
+ * the run are included in the walk, and the depth of each type is only computed once.
+ *
+ * <p>Instances are not thread-safe and must only be used for a single run.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+final class Hierarchy {
+
+  /**
+   * The name of the file with the "xml" format.
+   */
+  static final String XML_NAME = "hierarchy.xml";
+
+  /**
+   * The name of the additional file with the "text" format.
+   */
+  static final String TEXT_NAME = "hierarchy.txt";
+
+  private static final String NEW_LINE = System.lineSeparator();
+
+  /**
+   * The documented classes by qualified name.
+   */
+  private final Map<String, TypeElement> types = new TreeMap<>();
+
+  /**
+   * The depth of each class reached so far, including the supertypes outside the run.
+   */
+  private final Map<TypeElement, Integer> depths = new HashMap<>();
+
+  /**
+   * Adds the specified class to the hierarchy and computes its depth.
+   *
+   * @param type The documented class
+   */
+  void add(TypeElement type) {
+    this.types.put(type.getQualifiedName().toString(), type);
+    depth(type);
+  }
+
+  /**
+   * Returns the hierarchy as a "hierarchy" node with a "type" node for each class.
+   *
+   * @return the node to save as the hierarchy file.
+   */
+  XMLNode toNode() {
+    XMLNode hierarchy = new XMLNode("hierarchy");
+    for (Map.Entry<String, TypeElement> entry : this.types.entrySet()) {
+      TypeElement type = entry.getValue();
+      XMLNode node = new XMLNode("type");
+      node.attribute("name", entry.getKey());
+      node.attribute("kind", type.getKind().toString().toLowerCase(Locale.ROOT));
+      node.attribute("depth", Integer.toString(depth(type)));
+      TypeElement superclass = toTypeElement(type.getSuperclass());
+      if (superclass != null) {
+        node.child(new XMLNode("superclass").attribute("name", superclass.getQualifiedName().toString()));
+      }
+      for (TypeMirror mirror : type.getInterfaces()) {
+        TypeElement supertype = toTypeElement(mirror);
+        if (supertype != null) {
+          node.child(new XMLNode("interface").attribute("name", supertype.getQualifiedName().toString()));
+        }
+      }
+      hierarchy.child(node);
+    }
+    return hierarchy;
+  }
+
+  /**
+   * Saves the hierarchy as an adjacency list, with one tab-separated line per class: its name, kind,
+   * depth, superclass and comma-separated interfaces, using "-" when there are none.
+   *
+   * @param dir      The output directory
+   * @param encoding The character encoding of the file
+   *
+   * @throws DocletException If the file could not be saved.
+   */
+  void saveText(File dir, Charset encoding) throws DocletException {
+    StringBuilder text = new StringBuilder();
+    text.append("# name\tkind\tdepth\tsuperclass\tinterfaces").append(NEW_LINE);
+    for (Map.Entry<String, TypeElement> entry : this.types.entrySet()) {
+      TypeElement type = entry.getValue();
+      text.append(entry.getKey());
+      text.append('\t').append(type.getKind().toString().toLowerCase(Locale.ROOT));
+      text.append('\t').append(depth(type));
+      TypeElement superclass = toTypeElement(type.getSuperclass());
+      text.append('\t').append(superclass != null ? superclass.getQualifiedName() : "-");
+      text.append('\t');
+      int length = text.length();
+      for (TypeMirror mirror : type.getInterfaces()) {
+        TypeElement supertype = toTypeElement(mirror);
+        if (supertype != null) {
+          if (text.length() > length) text.append(',');
+          text.append(supertype.getQualifiedName());
+        }
+      }
+      if (text.length() == length) text.append('-');
+      text.append(NEW_LINE);
+    }
+    File file = new File(dir, TEXT_NAME);
+    try {
+      Files.createDirectories(dir.toPath());
+      Files.write(file.toPath(), text.toString().getBytes(encoding));
+    } catch (IOException ex) {
+      throw new DocletException(null, "Unable to save hierarchy: "+file.getAbsolutePath(), ex);
+    }
+  }
+
+  /**
+   * Returns the depth of the class, computing the depth of its supertypes first if needed.
+   */
+  private int depth(TypeElement type) {
+    Integer known = this.depths.get(type);
+    if (known != null) return known;
+    // Guard against cycles in erroneous code
+    this.depths.put(type, 0);
+    int depth = 0;
+    TypeElement superclass = toTypeElement(type.getSuperclass());
+    if (superclass != null) {
+      depth = depth(superclass) + 1;
+    } else if (type.getKind().isInterface()) {
+      for (TypeMirror mirror : type.getInterfaces()) {
+        TypeElement supertype = toTypeElement(mirror);
+        if (supertype != null) {
+          depth = Math.max(depth, depth(supertype) + 1);
+        }
+      }
+    }
+    this.depths.put(type, depth);
+    return depth;
+  }
+
+  private static @Nullable TypeElement toTypeElement(TypeMirror mirror) {
+    if (mirror.getKind() != TypeKind.DECLARED) return null;
+    return (TypeElement) ((DeclaredType) mirror).asElement();
+  }
+
+}
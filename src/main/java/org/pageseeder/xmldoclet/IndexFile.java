@@ -0,0 +1,172 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+/**
+ * The index of the output when multiple files are used.
+ *
+ * <p>The index lists a reference to the file of each class and package. This class can read the
+ * references of an existing index so that it can be updated when only some of the files are regenerated.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+final class IndexFile {
+
+  /**
+   * The name of the index file.
+   */
+  static final String NAME = "index.xml";
+
+  private IndexFile() {
+  }
+
+  /**
+   * Returns the reference to the file of the specified class or package node.
+   *
+   * @param node       The class or package node
+   * @param subfolders Whether files are organised in subfolders
+   *
+   * @return The corresponding reference node.
+   */
+  static XMLNode toReference(XMLNode node, boolean subfolders) {
+    return toReference(node.getName(), node.getAttribute("name"), subfolders);
+  }
+
+  /**
+   * Returns the reference to the file of the specified class or package.
+   *
+   * @param kind       The kind of node, "class" or "package"
+   * @param name       The qualified name of the class or package
+   * @param subfolders Whether files are organised in subfolders
+   *
+   * @return The corresponding reference node.
+   */
+  static XMLNode toReference(String kind, String name, boolean subfolders) {
+    if (subfolders) {
+      name = name.replace('.', '/');
+    }
+    XMLNode ref = new XMLNode(kind);
+    ref.attribute("xlink:type", "simple");
+    ref.attribute("xlink:href", name + ".xml");
+    return ref;
+  }
+
+  /**
+   * Returns the root of the index.
+   *
+   * @param meta       The metadata node
+   * @param references The references to include
+   *
+   * @return The root node of the index.
+   */
+  static XMLNode toRoot(XMLNode meta, List<XMLNode> references) {
+    XMLNode root = new XMLNode("root");
+    root.attribute("xmlns:xlink", "http://www.w3.org/1999/xlink");
+    root.child(meta);
+    for (XMLNode ref : references) {
+      root.child(ref);
+    }
+    return root;
+  }
+
+  /**
+   * Loads the references of the existing index in the specified directory.
+   *
+   * <p>References to files which no longer exist are ignored.
+   *
+   * @param dir The output directory
+   *
+   * @return The references in the order of the index or an empty list if there is no index.
+   *
+   * @throws DocletException If the index could not be parsed.
+   */
+  static List<XMLNode> load(File dir) throws DocletException {
+    File file = new File(dir, NAME);
+    if (!file.exists()) return Collections.emptyList();
+    List<XMLNode> references = new ArrayList<>();
+    try {
+      Document index = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(file);
+      NodeList children = index.getDocumentElement().getChildNodes();
+      for (int i = 0; i < children.getLength(); i++) {
+        Node child = children.item(i);
+        if (child.getNodeType() != Node.ELEMENT_NODE) continue;
+        String href = ((Element) child).getAttribute("xlink:href");
+        if (!href.isEmpty() && new File(dir, href).exists()) {
+          XMLNode ref = new XMLNode(child.getNodeName());
+          ref.attribute("xlink:type", "simple");
+          ref.attribute("xlink:href", href);
+          references.add(ref);
+        }
+      }
+    } catch (IOException | SAXException | ParserConfigurationException ex) {
+      throw new DocletException(null, "Unable to read index: "+file.getAbsolutePath(), ex);
+    }
+    return references;
+  }
+
+  /**
+   * Merges the existing references with the new ones.
+   *
+   * <p>Existing references keep their position; new references are added at the end.
+   *
+   * @param existing   The references of the existing index
+   * @param references The references to the files which were just generated
+   *
+   * @return The merged references.
+   */
+  static List<XMLNode> merge(List<XMLNode> existing, List<XMLNode> references) {
+    Map<String, XMLNode> merged = new LinkedHashMap<>();
+    for (XMLNode ref : existing) {
+      merged.put(ref.getAttribute("xlink:href"), ref);
+    }
+    for (XMLNode ref : references) {
+      merged.put(ref.getAttribute("xlink:href"), ref);
+    }
+    return new ArrayList<>(merged.values());
+  }
+
+  /**
+   * Rewrites the index in the specified directory without the references to files which no longer exist.
+   *
+   * @param dir      The output directory
+   * @param encoding The character encoding of the index
+   *
+   * @throws DocletException If the index could not be read or saved.
+   */
+  static void prune(File dir, Charset encoding) throws DocletException {
+    XMLNode meta = new XMLNode("meta");
+    meta.attribute("created", new SimpleDateFormat(XMLDoclet.ISO_8601).format(new Date()));
+    toRoot(meta, load(dir)).save(dir, NAME, encoding, "");
+  }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+/**
+ * Utility methods for the JSON files written by the doclet: the statistics and the trace.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+final class JSON {
+
+  /** Utility class */
+  private JSON() {
+  }
+
+  /**
+   * Appends the specified text as a quoted JSON string.
+   *
+   * @param json The JSON being written
+   * @param text The text to quote and escape
+   *
+   * @return the same builder
+   */
+  static StringBuilder string(StringBuilder json, String text) {
+    json.append('"');
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      switch (c) {
+        case '"':  json.append("\\\""); break;
+        case '\\': json.append("\\\\"); break;
+        default:
+          if (c < 0x20) {
+            json.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+          } else {
+            json.append(c);
+          }
+      }
+    }
+    return json.append('"');
+  }
+
+  /**
+   * Returns the specified text as a quoted JSON string.
+   *
+   * @param text The text to quote and escape
+   *
+   * @return the JSON string including the quotes
+   */
+  static String string(String text) {
+    return string(new StringBuilder(text.length() + 2), text).toString();
+  }
+
+}
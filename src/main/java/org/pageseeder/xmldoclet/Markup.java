@@ -171,7 +171,7 @@ public class Markup {
   private void addInlineTag(InlineTagTree inlineTag) {
     Taglet taglet = this.options.getTagletForName("@"+inlineTag.getTagName());
     if (taglet != null) {
-      this.xml.append(taglet.toString(List.of(inlineTag), this.typeElement));
+      this.xml.append(this.options.getTagletInvoker().invoke(taglet, List.of(inlineTag), this.typeElement));
     } else {
       // Unexpected tag
       this.reporter.print(Diagnostic.Kind.WARNING, this.typeElement, "Found unknown inline tag: "+inlineTag.getTagName());
@@ -182,7 +182,7 @@ public class Markup {
   private void addBlockTag(BlockTagTree blockTag) {
     Taglet taglet = this.options.getTagletForName(blockTag.getTagName());
     if (taglet != null) {
-      this.xml.append(taglet.toString(List.of(blockTag), this.typeElement));
+      this.xml.append(this.options.getTagletInvoker().invoke(taglet, List.of(blockTag), this.typeElement));
     } else {
       this.xml.append(blockTag);
     }
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event for the rendering of a comment as markup.
+ *
+ * <p>Only renders taking longer than the threshold are recorded, by default 1 ms; the threshold
+ * can be changed in the recording settings.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+@Name("org.pageseeder.xmldoclet.Markup")
+@Label("Markup Rendered")
+@Category("XML Doclet")
+@Description("A comment rendered as markup by the XML doclet")
+@Threshold("1 ms")
+final class MarkupEvent extends Event {
+
+  @Label("Element")
+  @Description("The element the comment belongs to")
+  String element;
+
+  @Label("Length")
+  @Description("The number of characters of markup produced")
+  int length;
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.Modifier;
+import java.util.Locale;
+
+/**
+ * Writes the modifiers of classes and members as attributes.
+ *
+ * <p>The modifiers are read once into a bitmask indexed by ordinal, from which the visibility and the
+ * boolean attributes are written using attribute names computed once for each modifier.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+final class Modifiers {
+
+  private static final Modifier[] MODIFIERS = Modifier.values();
+
+  /**
+   * The name of the boolean attribute of each modifier by ordinal, <code>null</code> for the
+   * modifiers which are written as the visibility.
+   */
+  private static final @Nullable String[] ATTRIBUTE_NAMES = new String[MODIFIERS.length];
+
+  static {
+    for (Modifier modifier : MODIFIERS) {
+      if (modifier != Modifier.PUBLIC && modifier != Modifier.PROTECTED && modifier != Modifier.PRIVATE) {
+        ATTRIBUTE_NAMES[modifier.ordinal()] = modifier.name().toLowerCase(Locale.ROOT);
+      }
+    }
+  }
+
+  private static final long PUBLIC = 1L << Modifier.PUBLIC.ordinal();
+
+  private static final long PROTECTED = 1L << Modifier.PROTECTED.ordinal();
+
+  private static final long PRIVATE = 1L << Modifier.PRIVATE.ordinal();
+
+  private static final long VISIBILITY = PUBLIC | PROTECTED | PRIVATE;
+
+  private Modifiers() {
+  }
+
+  /**
+   * Sets the visibility attribute and a "true" attribute for each other modifier of the element.
+   *
+   * @param element The class or member
+   * @param node    The node to update
+   */
+  static void toAttributes(Element element, XMLNode node) {
+    long mask = toMask(element);
+    node.attribute("visibility", toVisibility(mask));
+    long flags = mask & ~VISIBILITY;
+    while (flags != 0) {
+      int ordinal = Long.numberOfTrailingZeros(flags);
+      node.attribute(ATTRIBUTE_NAMES[ordinal], "true");
+      flags &= flags - 1;
+    }
+  }
+
+  /**
+   * @return the modifiers of the element as a bitmask of their ordinals.
+   */
+  private static long toMask(Element element) {
+    long mask = 0;
+    for (Modifier modifier : element.getModifiers()) {
+      mask |= 1L << modifier.ordinal();
+    }
+    return mask;
+  }
+
+  /**
+   * @return the visibility of an element from the bitmask of its modifiers.
+   */
+  private static String toVisibility(long mask) {
+    if ((mask & PRIVATE) != 0) return "private";
+    if ((mask & PROTECTED) != 0) return "protected";
+    if ((mask & PUBLIC) != 0) return "public";
+    return "package-private";
+  }
+
+}
@@ -0,0 +1,375 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.util.*;
+
+/**
+ * Filters classes and packages by their qualified name using the <code>-include</code> and
+ * <code>-exclude</code> patterns.
+ *
+ * <p>Patterns are split into segments on dots: <code>*</code> matches any part of a segment and a
+ * <code>**</code> segment matches any number of segments, including none. A pattern without a dot is
+ * matched against the last segment, so <code>*Impl</code> is the same as <code>**.*Impl</code>.
+ *
+ * <p>The include and exclude patterns are each compiled into a single automaton over the characters
+ * of the name, so a name is matched in one pass over its characters with one table lookup per
+ * character, whatever the number of patterns and wildcards. The deterministic states are built from
+ * the pattern states the first time they are reached: each new state costs a pass over the pattern
+ * states, and there is at most one new state per character of the names matched, although in practice
+ * names share most of their states. Once built, matching a name does not allocate.
+ *
+ * <p>A name is accepted if it matches one of the include patterns, or if there are none, and none of
+ * the exclude patterns.
+ *
+ * <p>Instances are not thread-safe.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+final class NameFilter {
+
+  private static final String ANY_SEGMENTS = "**";
+
+  private final @Nullable Automaton includes;
+
+  private final @Nullable Automaton excludes;
+
+  /**
+   * @param includes The patterns of the names to include
+   * @param excludes The patterns of the names to exclude
+   */
+  NameFilter(Collection<String> includes, Collection<String> excludes) {
+    this.includes = compile(includes);
+    this.excludes = compile(excludes);
+  }
+
+  /**
+   * @return <code>true</code> if no name is filtered out; <code>false</code> otherwise.
+   */
+  boolean isEmpty() {
+    return this.includes == null && this.excludes == null;
+  }
+
+  /**
+   * Indicates whether the specified name is included and not excluded.
+   *
+   * @param name The qualified name of a class or package
+   *
+   * @return <code>true</code> if the class or package should be included; <code>false</code> otherwise.
+   */
+  boolean matches(CharSequence name) {
+    Automaton includes = this.includes;
+    if (includes != null && !includes.matches(name)) return false;
+    Automaton excludes = this.excludes;
+    return excludes == null || !excludes.matches(name);
+  }
+
+  private static @Nullable Automaton compile(Collection<String> patterns) {
+    if (patterns.isEmpty()) return null;
+    Automaton automaton = new Automaton();
+    for (String pattern : patterns) {
+      List<String> segments = new ArrayList<>();
+      if (pattern.indexOf('.') < 0) {
+        segments.add(ANY_SEGMENTS);
+      }
+      segments.addAll(Arrays.asList(pattern.split("\\.")));
+      automaton.add(segments);
+    }
+    return automaton;
+  }
+
+  /**
+   * An automaton matching the names of any of its patterns.
+   *
+   * <p>The patterns are first added as a nondeterministic automaton where each state has at most one
+   * transition on a character, either a specific character, any character but a dot or any character,
+   * and any number of empty transitions. The deterministic states are sets of these states.
+   *
+   * <p>Characters are mapped to classes first: the characters which do not appear in the patterns
+   * all behave the same way, so the transition tables only have a column for the dot, for each other
+   * character of the patterns and for all the other characters.
+   */
+  private static final class Automaton {
+
+    /** Transition on any character other than a dot */
+    private static final int NOT_DOT = -1;
+
+    /** Transition on any character */
+    private static final int ANY = -2;
+
+    /** No transition on a character */
+    private static final int NONE = -3;
+
+    /** The class of the characters which do not appear in the patterns */
+    private static final int OTHER = 0;
+
+    /** The class of the dot */
+    private static final int DOT = 1;
+
+    // Nondeterministic automaton, state 0 is the start state
+
+    /** The character of the transition from each state, or NOT_DOT, ANY or NONE */
+    private int[] chars = new int[16];
+
+    /** The target of the transition on a character from each state */
+    private int[] targets = new int[16];
+
+    /** The targets of the empty transitions from each state */
+    private final List<int[]> empty = new ArrayList<>();
+
+    /** Whether each state completes a pattern */
+    private final BitSet accepting = new BitSet();
+
+    private int size = 0;
+
+    // Character classes
+
+    /** The class of each ASCII character */
+    private final int[] asciiClasses = new int[128];
+
+    /** The other characters of the patterns, sorted */
+    private char[] otherChars = new char[0];
+
+    private int[] otherClasses = new int[0];
+
+    private int classCount = 2;
+
+    // Deterministic automaton, built lazily
+
+    /** The nondeterministic states of each deterministic state */
+    private final List<BitSet> sets = new ArrayList<>();
+
+    /** The deterministic states by set of nondeterministic states */
+    private final Map<BitSet, Integer> index = new HashMap<>();
+
+    /** The next state by class for each deterministic state, -1 until computed */
+    private int[][] transitions = new int[0][];
+
+    private boolean[] accepts = new boolean[0];
+
+    /** The state without any pattern state, from which no name can match, -1 until built */
+    private int dead = -1;
+
+    Automaton() {
+      this.asciiClasses['.'] = DOT;
+      addState();
+    }
+
+    /**
+     * Adds the specified pattern, split into segments.
+     *
+     * <p>A <code>**</code> segment followed by another segment matches <code>([^.]*\.)*</code>, and the
+     * dot separating it from the next segment is skipped. The last <code>**</code> segment matches
+     * <code>(\.[^.]*)*</code> instead, including the dot separating it from the previous segment, or
+     * anything if that dot was already skipped.
+     */
+    void add(List<String> segments) {
+      this.sets.clear();
+      this.index.clear();
+      this.dead = -1;
+      int state = addState();
+      addEmpty(0, state);
+      boolean separator = false;
+      for (int i = 0; i < segments.size(); i++) {
+        String segment = segments.get(i);
+        boolean last = i == segments.size() - 1;
+        if (ANY_SEGMENTS.equals(segment)) {
+          // Consecutive "**" segments match the same as one
+          if (!last && ANY_SEGMENTS.equals(segments.get(i + 1))) continue;
+          if (!last) {
+            if (separator) {
+              state = addChar(state, '.');
+            }
+            // ([^.]*\.)*
+            int loop = addState();
+            addEmpty(state, loop);
+            addEmpty(addChar(addStar(loop, NOT_DOT), '.'), loop);
+            state = loop;
+            separator = false;
+          } else if (separator) {
+            // (\.[^.]*)*
+            int loop = addState();
+            addEmpty(state, loop);
+            addEmpty(addStar(addChar(loop, '.'), NOT_DOT), loop);
+            state = loop;
+          } else {
+            state = addStar(state, ANY);
+          }
+          continue;
+        }
+        if (separator) {
+          state = addChar(state, '.');
+        }
+        for (int j = 0; j < segment.length(); j++) {
+          char c = segment.charAt(j);
+          state = c == '*' ? addStar(state, NOT_DOT) : addChar(state, c);
+        }
+        separator = true;
+      }
+      this.accepting.set(state);
+    }
+
+    /**
+     * Indicates whether the name matches any of the patterns.
+     */
+    boolean matches(CharSequence name) {
+      if (this.sets.isEmpty()) {
+        BitSet start = new BitSet();
+        close(0, start);
+        toState(start);
+      }
+      int state = 0;
+      for (int i = 0; i < name.length(); i++) {
+        int c = toClass(name.charAt(i));
+        int next = this.transitions[state][c];
+        if (next < 0) {
+          next = step(state, c);
+        }
+        if (next == this.dead) return false;
+        state = next;
+      }
+      return this.accepts[state];
+    }
+
+    /**
+     * Computes the transition from the deterministic state for the character class.
+     */
+    private int step(int state, int c) {
+      BitSet from = this.sets.get(state);
+      BitSet to = new BitSet();
+      for (int s = from.nextSetBit(0); s >= 0; s = from.nextSetBit(s + 1)) {
+        int ch = this.chars[s];
+        if (ch == ANY || (ch == NOT_DOT && c != DOT) || (ch >= 0 && toClass((char) ch) == c)) {
+          close(this.targets[s], to);
+        }
+      }
+      int next = toState(to);
+      this.transitions[state][c] = next;
+      return next;
+    }
+
+    /**
+     * @return the deterministic state for the set of nondeterministic states, adding it if needed.
+     */
+    private int toState(BitSet set) {
+      Integer known = this.index.get(set);
+      if (known != null) return known;
+      int state = this.sets.size();
+      this.sets.add(set);
+      this.index.put(set, state);
+      if (state >= this.transitions.length) {
+        int capacity = Math.max(16, state * 2);
+        this.transitions = Arrays.copyOf(this.transitions, capacity);
+        this.accepts = Arrays.copyOf(this.accepts, capacity);
+      }
+      int[] row = new int[this.classCount];
+      Arrays.fill(row, -1);
+      this.transitions[state] = row;
+      this.accepts[state] = set.intersects(this.accepting);
+      if (set.isEmpty()) {
+        this.dead = state;
+      }
+      return state;
+    }
+
+    /**
+     * Adds the state and the states reachable from it with empty transitions to the set.
+     */
+    private void close(int state, BitSet set) {
+      if (set.get(state)) return;
+      set.set(state);
+      for (int target : this.empty.get(state)) {
+        close(target, set);
+      }
+    }
+
+    private int toClass(char c) {
+      if (c < 128) return this.asciiClasses[c];
+      int i = Arrays.binarySearch(this.otherChars, c);
+      return i >= 0 ? this.otherClasses[i] : OTHER;
+    }
+
+    /**
+     * Adds a transition on the character and returns its target.
+     */
+    private int addChar(int state, char c) {
+      if (toClass(c) == OTHER) {
+        if (c < 128) {
+          this.asciiClasses[c] = this.classCount++;
+        } else {
+          int i = -Arrays.binarySearch(this.otherChars, c) - 1;
+          this.otherChars = insert(this.otherChars, i, c);
+          int[] classes = new int[this.otherClasses.length + 1];
+          System.arraycopy(this.otherClasses, 0, classes, 0, i);
+          classes[i] = this.classCount++;
+          System.arraycopy(this.otherClasses, i, classes, i + 1, this.otherClasses.length - i);
+          this.otherClasses = classes;
+        }
+      }
+      int target = addState();
+      int from = addState();
+      addEmpty(state, from);
+      this.chars[from] = c;
+      this.targets[from] = target;
+      return target;
+    }
+
+    /**
+     * Adds any number of transitions on the character, NOT_DOT or ANY, and returns their target.
+     */
+    private int addStar(int state, int c) {
+      int loop = addState();
+      addEmpty(state, loop);
+      int from = addState();
+      addEmpty(loop, from);
+      this.chars[from] = c;
+      this.targets[from] = loop;
+      return loop;
+    }
+
+    private int addState() {
+      int state = this.size++;
+      if (state == this.chars.length) {
+        this.chars = Arrays.copyOf(this.chars, state * 2);
+        this.targets = Arrays.copyOf(this.targets, state * 2);
+      }
+      this.chars[state] = NONE;
+      this.empty.add(new int[0]);
+      return state;
+    }
+
+    private void addEmpty(int from, int to) {
+      int[] targets = this.empty.get(from);
+      targets = Arrays.copyOf(targets, targets.length + 1);
+      targets[targets.length - 1] = to;
+      this.empty.set(from, targets);
+    }
+
+    private static char[] insert(char[] chars, int i, char c) {
+      char[] copy = new char[chars.length + 1];
+      System.arraycopy(chars, 0, copy, 0, i);
+      copy[i] = c;
+      System.arraycopy(chars, i, copy, i + 1, chars.length - i);
+      return copy;
+    }
+  }
+
+}
@@ -19,7 +19,11 @@ import java.io.File;
 import java.nio.charset.Charset;
 import java.util.*;
 
+import javax.lang.model.element.Element;
+import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.sax.TransformerHandler;
 
 import jdk.javadoc.doclet.Doclet;
 import jdk.javadoc.doclet.Reporter;
@@ -42,26 +46,66 @@ public final class Options {
    */
   private final Map<String, Taglet> taglets = new HashMap<>();
 
+  /**
+   * Used to invoke the taglets.
+   */
+  private final TagletInvoker tagletInvoker;
+
+  /**
+   * The filters compiled from the options once they have been processed.
+   */
+  private @Nullable NameFilter nameFilter;
+
+  private @Nullable TypeFilter typeFilter;
+
   private final AnnotatedOption annotatedOption;
 
+  private final CacheOption cacheOption;
+
+  private final CacheSizeOption cacheSizeOption;
+
   private final DirectoryOption directoryOption;
 
   private final DocencodingOption docencodingOption;
 
+  private final ExcludeOption excludeOption;
+
   private final ExtendsOption extendsOption;
 
   private final FilenameOption filenameOption;
 
+  private final HierarchyOption hierarchyOption;
+
   private final ImplementsOption implementsOption;
 
+  private final IncludeOption includeOption;
+
   private final MultipleOption multipleOption;
 
+  private final PartsOption partsOption;
+
+  private final ResumeOption resumeOption;
+
+  private final StatsOption statsOption;
+
   private final SubfoldersOption subfoldersOption;
 
   private final TagletOption tagletOption;
 
+  private final TagletThresholdOption tagletThresholdOption;
+
   private final TagOption tagOption;
 
+  private final TraceOption traceOption;
+
+  private final UpdateOption updateOption;
+
+  private final UsagesOption usagesOption;
+
+  private final VisibilityOption visibilityOption;
+
+  private final XsltOption xsltOption;
+
   /**
    * Creates new options.
    *
@@ -69,15 +113,30 @@ public final class Options {
    */
   public Options(Reporter reporter) {
     this.annotatedOption = new AnnotatedOption(reporter);
+    this.cacheOption = new CacheOption(reporter);
+    this.cacheSizeOption = new CacheSizeOption(reporter);
     this.directoryOption = new DirectoryOption(reporter);
     this.docencodingOption = new DocencodingOption(reporter);
+    this.excludeOption = new ExcludeOption(reporter);
     this.extendsOption = new ExtendsOption(reporter);
     this.filenameOption = new FilenameOption(reporter);
+    this.hierarchyOption = new HierarchyOption(reporter);
     this.implementsOption = new ImplementsOption(reporter);
+    this.includeOption = new IncludeOption(reporter);
     this.multipleOption = new MultipleOption(reporter);
+    this.partsOption = new PartsOption(reporter);
+    this.resumeOption = new ResumeOption(reporter);
+    this.statsOption = new StatsOption(reporter);
     this.subfoldersOption = new SubfoldersOption(reporter);
     this.tagletOption = new TagletOption(reporter);
+    this.tagletThresholdOption = new TagletThresholdOption(reporter);
     this.tagOption = new TagOption(reporter);
+    this.traceOption = new TraceOption(reporter);
+    this.updateOption = new UpdateOption(reporter);
+    this.usagesOption = new UsagesOption(reporter);
+    this.visibilityOption = new VisibilityOption(reporter);
+    this.xsltOption = new XsltOption(reporter);
+    this.tagletInvoker = new TagletInvoker(reporter, this.tagletThresholdOption);
   }
 
   /**
@@ -98,6 +157,64 @@ public final class Options {
     return this.subfoldersOption.enabled();
   }
 
+  /**
+   * Indicates whether to merge the index with the existing one.
+   *
+   * @return <code>true</code> if the existing index should be updated; <code>false</code> otherwise.
+   */
+  public boolean updateIndex() {
+    return this.updateOption.enabled();
+  }
+
+  /**
+   * Indicates whether the specified part of the documentation should be generated.
+   *
+   * @param part The part of the documentation
+   *
+   * @return <code>true</code> if it was requested with the '-parts' option or if the option was not used.
+   */
+  public boolean generates(PartsOption.Part part) {
+    return this.partsOption.getParts().contains(part);
+  }
+
+  /**
+   * Indicates whether to resume the run interrupted in the output directory.
+   *
+   * @return <code>true</code> if the files listed in the checkpoint should be skipped; <code>false</code> otherwise.
+   */
+  public boolean resumeFromCheckpoint() {
+    return this.resumeOption.enabled();
+  }
+
+  /**
+   * Returns the format of the class hierarchy file.
+   *
+   * @return "xml" or "text", or <code>null</code> if the hierarchy should not be written.
+   */
+  public @Nullable String getHierarchyFormat() {
+    return this.hierarchyOption.getFormat();
+  }
+
+  /**
+   * Indicates whether to write the usages of the documented classes.
+   *
+   * @return <code>true</code> if the usages file should be written; <code>false</code> otherwise.
+   */
+  public boolean writeUsages() {
+    return this.usagesOption.enabled();
+  }
+
+  /**
+   * Returns a new handler applying the XSLT stylesheet specified with the <code>-xslt</code> option.
+   *
+   * @return a new transformer handler or <code>null</code> if documents should be saved as XML.
+   *
+   * @throws TransformerConfigurationException If the handler could not be created.
+   */
+  public @Nullable TransformerHandler newTransformerHandler() throws TransformerConfigurationException {
+    return this.xsltOption.newTransformerHandler();
+  }
+
   /**
    * Returns the charset to use to encode the output.
    *
@@ -125,6 +242,96 @@ public final class Options {
     return this.filenameOption.getFilename();
   }
 
+  /**
+   * Returns the file where to write the statistics about the run.
+   *
+   * @return the file for the statistics or <code>null</code> if they should not be recorded.
+   */
+  public @Nullable File getStatsFile() {
+    return this.statsOption.getFile();
+  }
+
+  /**
+   * Returns the file where to write the timeline of the run.
+   *
+   * @return the file for the trace or <code>null</code> if it should not be recorded.
+   */
+  public @Nullable File getTraceFile() {
+    return this.traceOption.getFile();
+  }
+
+  /**
+   * Returns the directory of the cache of rendered classes.
+   *
+   * @return the cache directory or <code>null</code> if classes should not be cached.
+   */
+  public @Nullable File getCacheDirectory() {
+    return this.cacheOption.getDirectory();
+  }
+
+  /**
+   * Returns the maximum size of the cache of rendered classes.
+   *
+   * @return the maximum size in bytes.
+   */
+  public long getCacheSize() {
+    return this.cacheSizeOption.getBytes();
+  }
+
+  /**
+   * Returns a fingerprint of the options which affect how classes are rendered.
+   *
+   * <p>The output of a class can only be cached if all custom taglets are thread-safe, since other
+   * taglets may depend on more than the content of the tags. The fingerprint includes the build of the
+   * doclet and of each taglet, so that their output is not reused when they change.
+   *
+   * @return the fingerprint or <code>null</code> if the output of a taglet may not be cached.
+   */
+  @Nullable String getRenderFingerprint() {
+    if (RenderCache.getBuild(XMLDoclet.class) == null) return null;
+    for (Taglet taglet : this.tagletOption.getTaglets()) {
+      if (!(taglet instanceof ThreadSafeTaglet)) return null;
+      if (RenderCache.getBuild(taglet.getClass()) == null) return null;
+    }
+    return toRenderFingerprint();
+  }
+
+  /**
+   * Returns a fingerprint of the options which affect the files written by a run.
+   *
+   * <p>In addition to the options affecting how classes are rendered, it includes the filters, the
+   * encoding and whether a stylesheet is used, so that a run is not resumed with other options.
+   *
+   * @return the fingerprint of the output options.
+   */
+  String getOutputFingerprint() {
+    StringBuilder fingerprint = new StringBuilder(toRenderFingerprint());
+    fingerprint.append("include:").append(this.includeOption.getPatterns()).append('\n');
+    fingerprint.append("exclude:").append(this.excludeOption.getPatterns()).append('\n');
+    fingerprint.append("extends:").append(this.extendsOption.getSuperclasses()).append('\n');
+    fingerprint.append("implements:").append(this.implementsOption.getInterfaces()).append('\n');
+    fingerprint.append("annotated:").append(this.annotatedOption.getAnnotations()).append('\n');
+    fingerprint.append("encoding:").append(getEncoding()).append('\n');
+    fingerprint.append("xslt:").append(this.xsltOption.enabled()).append('\n');
+    return fingerprint.toString();
+  }
+
+  private String toRenderFingerprint() {
+    StringBuilder fingerprint = new StringBuilder();
+    fingerprint.append("doclet:").append(RenderCache.getBuild(XMLDoclet.class)).append('\n');
+    fingerprint.append("visibility:").append(this.visibilityOption.getVisibility()).append('\n');
+    fingerprint.append("parts:").append(this.partsOption.getParts()).append('\n');
+    for (CustomTag tag : this.tagOption.getTags()) {
+      fingerprint.append("tag:").append(tag.getName()).append(':').append(tag.isInlineTag())
+          .append(':').append(tag.getTitle()).append(':').append(tag.getAllowedLocations()).append('\n');
+    }
+    for (Taglet taglet : this.tagletOption.getTaglets()) {
+      fingerprint.append("taglet:").append(taglet.getClass().getName())
+          .append(':').append(RenderCache.getBuild(taglet.getClass())).append('\n');
+    }
+    return fingerprint.toString();
+  }
+
   /**
    * Returns the taglet instance for the specified tag name.
    *
@@ -135,6 +342,15 @@ public final class Options {
     return getTaglets().get(name);
   }
 
+  /**
+   * Returns the invoker to use when calling any taglet.
+   *
+   * @return The taglet invoker for these options.
+   */
+  TagletInvoker getTagletInvoker() {
+    return this.tagletInvoker;
+  }
+
   private Map<String, Taglet> getTaglets() {
     if (this.taglets.isEmpty()) {
       // Load the standard taglets
@@ -171,44 +387,104 @@ public final class Options {
   }
 
   /**
-   * Filters the included set of classes by checking whether the given class matches all of
-   * the specified '-extends', '-implements' and '-annotated' options.
+   * Filters the included set of classes by checking whether the given class matches the
+   * '-include' and '-exclude' patterns and all of the specified '-extends', '-implements' and
+   * '-annotated' options.
+   *
+   * <p>Superclasses and interfaces match whether they are direct or inherited.
    *
    * @param element the class documentation.
    * @return <code>true</code> if the class should be included; <code>false</code> otherwise.
    */
   public boolean filter(TypeElement element) {
-    boolean included = true;
-
-    // Extends
-    if (this.extendsOption.hasFilter()) {
-      included = this.extendsOption.matches(element);
+    NameFilter names = nameFilter();
+    if (!names.isEmpty() && !names.matches(element.getQualifiedName())) return false;
+    TypeFilter filter = this.typeFilter;
+    if (filter == null) {
+      filter = new TypeFilter(this.extendsOption.getSuperclasses(), this.implementsOption.getInterfaces(),
+          this.annotatedOption.getAnnotations());
+      this.typeFilter = filter;
     }
-    // Implements
-    if (this.implementsOption.hasFilter()) {
-      included = included && this.implementsOption.matches(element);
-    }
-    // Annotation
-    if (this.annotatedOption.hasFilter()) {
-      included = included && this.annotatedOption.matches(element);
+    return filter.isEmpty() || filter.matches(element);
+  }
+
+  /**
+   * Filters the included set of packages by checking whether the given package matches the
+   * '-include' and '-exclude' patterns.
+   *
+   * @param element the package documentation.
+   * @return <code>true</code> if the package should be included; <code>false</code> otherwise.
+   */
+  public boolean filter(PackageElement element) {
+    NameFilter names = nameFilter();
+    return names.isEmpty() || names.matches(element.getQualifiedName());
+  }
+
+  /**
+   * Indicates whether the members must be pruned according to the '-visibility' option.
+   *
+   * @return <code>true</code> if some members may not be documented; <code>false</code> otherwise.
+   */
+  public boolean hasVisibilityFilter() {
+    return !this.visibilityOption.includesAll();
+  }
+
+  /**
+   * Indicates whether the specified class or member is visible enough to be documented.
+   *
+   * <p>A class is only visible if the classes enclosing it are visible as well, the class of a member
+   * is assumed to be visible.
+   *
+   * @param element the class or member documentation.
+   * @return <code>true</code> if it should be documented; <code>false</code> otherwise.
+   */
+  public boolean isVisible(Element element) {
+    if (this.visibilityOption.includesAll()) return true;
+    if (!this.visibilityOption.accepts(element)) return false;
+    if (!(element instanceof TypeElement)) return true;
+    Element enclosing = element.getEnclosingElement();
+    while (enclosing instanceof TypeElement) {
+      if (!this.visibilityOption.accepts(enclosing)) return false;
+      enclosing = enclosing.getEnclosingElement();
     }
+    return true;
+  }
 
-    // No filtering
-    return included;
+  private NameFilter nameFilter() {
+    NameFilter filter = this.nameFilter;
+    if (filter == null) {
+      filter = new NameFilter(this.includeOption.getPatterns(), this.excludeOption.getPatterns());
+      this.nameFilter = filter;
+    }
+    return filter;
   }
 
   public Set<Doclet.Option> asSet() {
     Set<Doclet.Option> options = new HashSet<>();
     options.add(this.annotatedOption);
+    options.add(this.cacheOption);
+    options.add(this.cacheSizeOption);
     options.add(this.directoryOption);
     options.add(this.docencodingOption);
+    options.add(this.excludeOption);
     options.add(this.extendsOption);
     options.add(this.filenameOption);
+    options.add(this.hierarchyOption);
     options.add(this.implementsOption);
+    options.add(this.includeOption);
     options.add(this.multipleOption);
+    options.add(this.partsOption);
+    options.add(this.resumeOption);
+    options.add(this.statsOption);
     options.add(this.subfoldersOption);
     options.add(this.tagletOption);
+    options.add(this.tagletThresholdOption);
     options.add(this.tagOption);
+    options.add(this.traceOption);
+    options.add(this.updateOption);
+    options.add(this.usagesOption);
+    options.add(this.visibilityOption);
+    options.add(this.xsltOption);
     return options;
   }
 
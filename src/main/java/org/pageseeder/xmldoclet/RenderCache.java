@@ -0,0 +1,377 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import javax.lang.model.element.*;
+import javax.lang.model.util.Elements;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A persistent cache of the rendered class nodes shared by doclet runs.
+ *
+ * <p>Entries are content-addressed: the key is a SHA-256 hash of everything the rendering of a class
+ * depends on, that is its declaration, the declaration and doc comment of each member and a
+ * fingerprint of the doclet options, which includes the build of the doclet and of each taglet. An
+ * entry never needs to be invalidated, it is simply no longer used when the class, the doclet or a
+ * taglet changes.
+ *
+ * <p>The cache may be used by several processes at once: entries are written to a temporary file and
+ * atomically moved into place, and eviction is done by a single process holding a lock on the cache
+ * directory. When the size of the cache exceeds its limit, the entries which were least recently used
+ * are deleted first.
+ *
+ * <p>Only the output is cached; warnings reported while rendering a class are not repeated when the
+ * class is loaded from the cache.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+final class RenderCache {
+
+  /**
+   * Version of the format of the entries, must be changed whenever the way entries are stored changes.
+   */
+  private static final String FORMAT = "xmldoclet-cache-1";
+
+  /**
+   * The build of each class, computed once since the code of a loaded class cannot change.
+   */
+  private static final ClassValue<String> BUILDS = new ClassValue<>() {
+    @Override
+    protected @Nullable String computeValue(Class<?> type) {
+      return computeBuild(type);
+    }
+  };
+
+  /**
+   * Extension of the entries.
+   */
+  private static final String EXTENSION = ".xml";
+
+  /**
+   * The indentation of class nodes in the documents.
+   */
+  private static final String TABS = "\t";
+
+  /**
+   * Eviction removes entries until the cache is below this fraction of its maximum size.
+   */
+  private static final double EVICTION_TARGET = 0.9;
+
+  /**
+   * Temporary files older than this were left by a process which did not complete.
+   */
+  private static final long STALE_TEMP_MS = 3_600_000;
+
+  private final Path dir;
+
+  private final long maxBytes;
+
+  private final String fingerprint;
+
+  private final Elements elements;
+
+  private final byte[] separator = {0};
+
+  private int hits = 0;
+
+  private int misses = 0;
+
+  /**
+   * @param dir         The directory of the cache
+   * @param maxBytes    The maximum size of the cache in bytes
+   * @param fingerprint The fingerprint of the options affecting the rendering
+   * @param elements    The utility to access the doc comments
+   */
+  RenderCache(File dir, long maxBytes, String fingerprint, Elements elements) {
+    this.dir = dir.toPath();
+    this.maxBytes = maxBytes;
+    this.fingerprint = fingerprint;
+    this.elements = elements;
+  }
+
+  /**
+   * Computes the key of the specified class.
+   *
+   * @param type The class
+   *
+   * @return the key as a hexadecimal string.
+   */
+  String key(TypeElement type) {
+    MessageDigest digest = newDigest();
+    update(digest, FORMAT);
+    update(digest, this.fingerprint);
+    update(digest, System.lineSeparator());
+    update(digest, type.getQualifiedName());
+    update(digest, this.elements.getPackageOf(type).getQualifiedName());
+    update(digest, type.getNestingKind());
+    update(digest, type.getSuperclass());
+    update(digest, type.getInterfaces());
+    update(digest, type.getTypeParameters());
+    updateElement(digest, type);
+    for (Element member : type.getEnclosedElements()) {
+      if (member instanceof TypeElement) {
+        // Nested types are rendered separately
+        update(digest, member.getKind());
+        update(digest, member.getSimpleName());
+        continue;
+      }
+      updateElement(digest, member);
+      if (member instanceof VariableElement) {
+        update(digest, ((VariableElement) member).getConstantValue());
+      } else if (member instanceof ExecutableElement) {
+        ExecutableElement executable = (ExecutableElement) member;
+        update(digest, executable.getDefaultValue());
+        update(digest, executable.isVarArgs());
+        for (VariableElement parameter : executable.getParameters()) {
+          updateElement(digest, parameter);
+        }
+      }
+    }
+    return toHex(digest.digest());
+  }
+
+  /**
+   * Returns the class node stored in the cache.
+   *
+   * @param key  The key of the class
+   * @param type The class
+   *
+   * @return The cached node or <code>null</code> if there is no entry for this key.
+   */
+  @Nullable XMLNode get(String key, TypeElement type) {
+    Path entry = entry(key);
+    try {
+      String content = new String(Files.readAllBytes(entry), StandardCharsets.UTF_8);
+      int newline = content.indexOf('\n');
+      int size = Integer.parseInt(content.substring(0, newline));
+      Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+      this.hits++;
+      return XMLNode.raw("class", type.getQualifiedName().toString(), content.substring(newline + 1), size);
+    } catch (IOException | RuntimeException ex) {
+      // Missing, evicted by another process or corrupted
+      this.misses++;
+      return null;
+    }
+  }
+
+  /**
+   * Stores the specified class node in the cache.
+   *
+   * @param key  The key of the class
+   * @param node The class node
+   *
+   * @return A node with the same output which can be used instead of the original one.
+   *
+   * @throws IOException If the entry could not be written.
+   */
+  XMLNode put(String key, XMLNode node) throws IOException {
+    String xml = node.toString(TABS);
+    int size = node.size();
+    Path entry = entry(key);
+    Files.createDirectories(entry.getParent());
+    Path temp = Files.createTempFile(entry.getParent(), key, ".tmp");
+    try {
+      Files.write(temp, (size + "\n" + xml).getBytes(StandardCharsets.UTF_8));
+      try {
+        Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException ex) {
+        Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+    return XMLNode.raw(node.getName(), node.getAttribute("name"), xml, size);
+  }
+
+  /**
+   * @return the number of classes loaded from the cache.
+   */
+  int hits() {
+    return this.hits;
+  }
+
+  /**
+   * @return the number of classes which were not in the cache.
+   */
+  int misses() {
+    return this.misses;
+  }
+
+  /**
+   * Deletes the least recently used entries if the cache exceeds its maximum size.
+   *
+   * <p>Does nothing if another process is already evicting entries.
+   *
+   * @return the number of entries deleted.
+   *
+   * @throws IOException If the cache directory could not be read.
+   */
+  int evict() throws IOException {
+    if (!Files.isDirectory(this.dir)) return 0;
+    try (FileChannel channel = FileChannel.open(this.dir.resolve(".lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+         FileLock lock = channel.tryLock()) {
+      if (lock == null) return 0;
+      List<Entry> entries = new ArrayList<>();
+      long total = 0;
+      try (Stream<Path> paths = Files.walk(this.dir, 2)) {
+        for (Path path : (Iterable<Path>) paths::iterator) {
+          String name = path.getFileName().toString();
+          if (!name.endsWith(EXTENSION) && !name.endsWith(".tmp")) continue;
+          try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (name.endsWith(".tmp")) {
+              if (attributes.lastModifiedTime().toMillis() < System.currentTimeMillis() - STALE_TEMP_MS) {
+                Files.deleteIfExists(path);
+              }
+              continue;
+            }
+            entries.add(new Entry(path, attributes.lastModifiedTime().toMillis(), attributes.size()));
+            total += attributes.size();
+          } catch (NoSuchFileException ex) {
+            // Deleted in the meantime
+          }
+        }
+      }
+      if (total <= this.maxBytes) return 0;
+      entries.sort(Comparator.comparingLong(e -> e.lastUsed));
+      long target = (long) (this.maxBytes * EVICTION_TARGET);
+      int deleted = 0;
+      for (Entry entry : entries) {
+        if (total <= target) break;
+        if (Files.deleteIfExists(entry.path)) deleted++;
+        total -= entry.size;
+      }
+      return deleted;
+    } catch (OverlappingFileLockException ex) {
+      return 0;
+    }
+  }
+
+  private Path entry(String key) {
+    return this.dir.resolve(key.substring(0, 2)).resolve(key + EXTENSION);
+  }
+
+  private void updateElement(MessageDigest digest, Element element) {
+    update(digest, element.getKind());
+    update(digest, element.getSimpleName());
+    update(digest, element.getModifiers());
+    update(digest, element.asType());
+    update(digest, element.getAnnotationMirrors());
+    update(digest, this.elements.getDocComment(element));
+  }
+
+  private void update(MessageDigest digest, @Nullable Object value) {
+    if (value != null) {
+      digest.update(value.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    digest.update(this.separator);
+  }
+
+  /**
+   * Returns an identifier of the build of the specified class, so that the entries rendered by another
+   * build of the doclet or of a taglet are not used.
+   *
+   * <p>The identifier is the implementation version of the package followed by a checksum of the jar
+   * the class was loaded from or, for classes loaded from a directory, of the class files of its package
+   * and subpackages.
+   *
+   * @param type The class of the doclet or of a taglet
+   *
+   * @return the build identifier or <code>null</code> if the code of the class could not be read.
+   */
+  static @Nullable String getBuild(Class<?> type) {
+    return BUILDS.get(type);
+  }
+
+  private static @Nullable String computeBuild(Class<?> type) {
+    Package p = type.getPackage();
+    String version = p != null ? p.getImplementationVersion() : null;
+    CodeSource source = type.getProtectionDomain().getCodeSource();
+    if (source == null || source.getLocation() == null) return null;
+    try {
+      Path location = Paths.get(source.getLocation().toURI());
+      MessageDigest digest = newDigest();
+      if (Files.isDirectory(location)) {
+        Path dir = location.resolve(type.getPackageName().replace('.', File.separatorChar));
+        try (Stream<Path> files = Files.walk(dir)) {
+          for (Path file : (Iterable<Path>) files.filter(f -> f.toString().endsWith(".class")).sorted()::iterator) {
+            digest.update(location.relativize(file).toString().getBytes(StandardCharsets.UTF_8));
+            digest.update(Files.readAllBytes(file));
+          }
+        }
+      } else {
+        digest.update(Files.readAllBytes(location));
+      }
+      return version + ":" + toHex(digest.digest());
+    } catch (IOException | URISyntaxException | IllegalArgumentException | SecurityException ex) {
+      return null;
+    }
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException("SHA-256 is not available", ex);
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return hex.toString();
+  }
+
+  /**
+   * An entry of the cache on disk.
+   */
+  private static final class Entry {
+
+    private final Path path;
+    private final long lastUsed;
+    private final long size;
+
+    Entry(Path path, long lastUsed, long size) {
+      this.path = path;
+      this.lastUsed = lastUsed;
+      this.size = size;
+    }
+  }
+
+}
@@ -0,0 +1,405 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import com.sun.management.ThreadMXBean;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Collects statistics about a doclet run.
+ *
+ * <p>For each phase, this class records the number of times it was entered, the wall time spent and
+ * the number of bytes allocated by the current thread. Phases may be nested (for example, markup is
+ * rendered while processing a class), in which case the time of the inner phase is also included in the
+ * outer phase.
+ *
+ * <p>When a {@link TraceRecorder} is specified, each phase is also recorded as a span on the timeline.
+ *
+ * <p>When disabled, all methods return immediately so that the doclet can call them unconditionally.
+ *
+ * <p>This class is not thread-safe and must be used from the thread running the doclet.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+final class RunStats {
+
+  /**
+   * Statistics which are not recorded.
+   */
+  static final RunStats DISABLED = new RunStats(false, null);
+
+  /**
+   * The phases of a doclet run.
+   */
+  enum Phase {
+
+    /** Applying the filters to the included elements */
+    FILTER("filter"),
+
+    /** Building the class nodes */
+    CLASS("class"),
+
+    /** Building the package nodes */
+    PACKAGE("package"),
+
+    /** Building the usages of the classes */
+    USAGES("usages"),
+
+    /** Building the class hierarchy */
+    HIERARCHY("hierarchy"),
+
+    /** Rendering the comments as markup */
+    MARKUP("markup"),
+
+    /** Saving the output, including serialization and I/O */
+    SAVE("save"),
+
+    /** Serializing the nodes as XML text */
+    SERIALIZE("serialize"),
+
+    /** Writing the XML to files */
+    IO("io"),
+
+    /** Applying the XSLT stylesheet and writing the result */
+    TRANSFORM("transform");
+
+    private final String id;
+
+    Phase(String id) {
+      this.id = id;
+    }
+
+  }
+
+  /**
+   * The values counted during a doclet run.
+   */
+  enum Counter {
+
+    /** Number of classes processed */
+    CLASSES("classes"),
+
+    /** Number of packages processed */
+    PACKAGES("packages"),
+
+    /** Number of fields, constructors and methods processed */
+    MEMBERS("members"),
+
+    /** Number of XML nodes written */
+    NODES("nodes"),
+
+    /** Number of files written */
+    FILES("files"),
+
+    /** Number of bytes written */
+    BYTES("bytes"),
+
+    /** Number of classes loaded from the render cache */
+    CACHE_HITS("cache_hits"),
+
+    /** Number of classes rendered because they were not in the render cache */
+    CACHE_MISSES("cache_misses"),
+
+    /** Number of classes not documented because of their visibility */
+    PRUNED_TYPES("pruned_types"),
+
+    /** Number of fields, constructors and methods not documented because of their visibility */
+    PRUNED_MEMBERS("pruned_members"),
+
+    /** Number of classes and packages skipped because their file was written by the interrupted run */
+    RESUMED("resumed"),
+
+    /** Number of annotations sharing the node of an identical annotation rendered before */
+    SHARED_ANNOTATIONS("shared_annotations");
+
+    private final String id;
+
+    Counter(String id) {
+      this.id = id;
+    }
+
+  }
+
+  /**
+   * Maximum depth of nested phases.
+   */
+  private static final int MAX_DEPTH = 16;
+
+  private final boolean enabled;
+
+  private final @Nullable ThreadMXBean threads;
+
+  private final @Nullable TraceRecorder trace;
+
+  private final long[] calls = new long[Phase.values().length];
+
+  private final long[] times = new long[Phase.values().length];
+
+  private final long[] allocations = new long[Phase.values().length];
+
+  private final long[] counts = new long[Counter.values().length];
+
+  // Stack of phases currently open
+  private final long[] startTimes = new long[MAX_DEPTH];
+
+  private final long[] startAllocations = new long[MAX_DEPTH];
+
+  private int depth = 0;
+
+  private final long startTime;
+
+  private final long startAllocation;
+
+  /**
+   * @param enabled <code>true</code> to record the statistics; <code>false</code> otherwise.
+   * @param trace   The recorder for the timeline, if any.
+   */
+  RunStats(boolean enabled, @Nullable TraceRecorder trace) {
+    this.enabled = enabled || trace != null;
+    this.threads = enabled ? getAllocationBean() : null;
+    this.trace = trace;
+    this.startTime = System.nanoTime();
+    this.startAllocation = allocatedBytes();
+  }
+
+  /**
+   * @return <code>true</code> if statistics or spans are recorded; <code>false</code> otherwise.
+   */
+  boolean isEnabled() {
+    return this.enabled;
+  }
+
+  /**
+   * Starts recording the specified phase.
+   *
+   * <p>Must always be paired with a call to {@link #end(Phase)}.
+   *
+   * @param phase The phase starting
+   */
+  void begin(Phase phase) {
+    if (!this.enabled) return;
+    if (this.depth < MAX_DEPTH) {
+      this.startAllocations[this.depth] = allocatedBytes();
+      this.startTimes[this.depth] = System.nanoTime();
+    }
+    this.depth++;
+  }
+
+  /**
+   * Stops recording the specified phase.
+   *
+   * @param phase The phase ending
+   */
+  void end(Phase phase) {
+    end(phase, phase.id);
+  }
+
+  /**
+   * Stops recording the specified phase.
+   *
+   * @param phase The phase ending
+   * @param label The label of the span on the timeline, only converted to a string when tracing
+   */
+  void end(Phase phase, Object label) {
+    if (!this.enabled) return;
+    this.depth--;
+    if (this.depth < MAX_DEPTH) {
+      int i = phase.ordinal();
+      long start = this.startTimes[this.depth];
+      this.times[i] += System.nanoTime() - start;
+      this.allocations[i] += allocatedBytes() - this.startAllocations[this.depth];
+      this.calls[i]++;
+      if (this.trace != null) {
+        this.trace.record(label.toString(), phase.id, start);
+      }
+    }
+  }
+
+  /**
+   * Increments the specified counter.
+   *
+   * @param counter The counter to update
+   * @param value   The value to add
+   */
+  void add(Counter counter, long value) {
+    if (!this.enabled) return;
+    this.counts[counter.ordinal()] += value;
+  }
+
+  /**
+   * Saves the statistics as JSON.
+   *
+   * @param file The file to write
+   *
+   * @throws DocletException If the file could not be saved.
+   */
+  void save(File file) throws DocletException {
+    long totalTime = System.nanoTime() - this.startTime;
+    long totalAllocation = allocatedBytes() - this.startAllocation;
+    StringBuilder json = new StringBuilder();
+    json.append("{\n");
+    json.append("  \"created\": ");
+    JSON.string(json, new SimpleDateFormat(XMLDoclet.ISO_8601).format(new Date())).append(",\n");
+    json.append("  \"total\": {\"time_ms\": ").append(toMillis(totalTime))
+        .append(", \"allocated_bytes\": ").append(totalAllocation).append("},\n");
+    json.append("  \"phases\": {\n");
+    Phase[] phases = Phase.values();
+    for (Phase phase : phases) {
+      int i = phase.ordinal();
+      JSON.string(json.append("    "), phase.id).append(": {");
+      json.append("\"calls\": ").append(this.calls[i]);
+      json.append(", \"time_ms\": ").append(toMillis(this.times[i]));
+      json.append(", \"allocated_bytes\": ").append(this.allocations[i]);
+      json.append(i < phases.length - 1 ? "},\n" : "}\n");
+    }
+    json.append("  },\n");
+    json.append("  \"counts\": {\n");
+    Counter[] counters = Counter.values();
+    for (Counter counter : counters) {
+      int i = counter.ordinal();
+      JSON.string(json.append("    "), counter.id).append(": ").append(this.counts[i]);
+      json.append(i < counters.length - 1 ? ",\n" : "\n");
+    }
+    json.append("  }\n");
+    json.append("}\n");
+
+    File dir = file.getAbsoluteFile().getParentFile();
+    if (dir != null && !dir.exists() && !dir.mkdirs()) {
+      throw new DocletException(null, "Unable to create directory "+dir.getAbsolutePath());
+    }
+    try (Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+      out.write(json.toString());
+    } catch (IOException ex) {
+      throw new DocletException(null, "Unable to save statistics: "+file.getAbsolutePath(), ex);
+    }
+  }
+
+  /**
+   * Loads the statistics saved by {@link #save(File)}, so that the tests and benchmarks do not have to
+   * parse the JSON themselves.
+   *
+   * @param file The file written by {@link #save(File)}
+   *
+   * @return the statistics read from the file, which cannot record anything else.
+   *
+   * @throws IOException If the file could not be read.
+   */
+  static RunStats load(File file) throws IOException {
+    RunStats stats = new RunStats(false, null);
+    for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+      int start = line.indexOf('"');
+      int end = line.indexOf('"', start + 1);
+      if (start < 0 || end < 0) continue;
+      String id = line.substring(start + 1, end);
+      for (Phase phase : Phase.values()) {
+        if (phase.id.equals(id)) {
+          int i = phase.ordinal();
+          stats.calls[i] = Long.parseLong(value(line, "calls"));
+          stats.times[i] = Math.round(Double.parseDouble(value(line, "time_ms")) * 1_000_000);
+          stats.allocations[i] = Long.parseLong(value(line, "allocated_bytes"));
+        }
+      }
+      for (Counter counter : Counter.values()) {
+        if (counter.id.equals(id)) {
+          stats.counts[counter.ordinal()] = Long.parseLong(value(line, id));
+        }
+      }
+    }
+    return stats;
+  }
+
+  /**
+   * @param phase The phase
+   *
+   * @return the number of bytes allocated in the specified phase.
+   */
+  long getAllocatedBytes(Phase phase) {
+    return this.allocations[phase.ordinal()];
+  }
+
+  /**
+   * @param counter The counter
+   *
+   * @return the value of the specified counter.
+   */
+  long getCount(Counter counter) {
+    return this.counts[counter.ordinal()];
+  }
+
+  /**
+   * Saves the timeline in the Chrome trace event format, including a span for the whole run.
+   *
+   * @param file The file to write
+   *
+   * @throws DocletException If the file could not be saved.
+   */
+  void saveTrace(File file) throws DocletException {
+    if (this.trace == null) return;
+    this.trace.record("run", "run", this.startTime);
+    this.trace.save(file);
+  }
+
+  /**
+   * @return the number of bytes allocated by the current thread or 0 if not supported.
+   */
+  private long allocatedBytes() {
+    ThreadMXBean bean = this.threads;
+    return bean != null ? bean.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+  }
+
+  /**
+   * Returns the number following the specified name on a line written by {@link #save(File)}.
+   */
+  private static String value(String line, String name) {
+    String prefix = "\"" + name + "\": ";
+    int start = line.indexOf(prefix);
+    if (start < 0) throw new IllegalArgumentException("Missing "+name+" in statistics: "+line);
+    start += prefix.length();
+    int end = start;
+    while (end < line.length() && ",}".indexOf(line.charAt(end)) < 0) end++;
+    return line.substring(start, end).trim();
+  }
+
+  private static String toMillis(long nanos) {
+    return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+  }
+
+  /**
+   * @return the thread bean if it can measure allocations; <code>null</code> otherwise.
+   */
+  private static @Nullable ThreadMXBean getAllocationBean() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof ThreadMXBean) {
+      ThreadMXBean threads = (ThreadMXBean) bean;
+      if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+        return threads;
+      }
+    }
+    return null;
+  }
+
+}
@@ -0,0 +1,537 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import jdk.javadoc.doclet.Reporter;
+import org.eclipse.jdt.annotation.Nullable;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.NamespaceSupport;
+
+import javax.lang.model.element.Element;
+import javax.tools.Diagnostic;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replays a tree of nodes as SAX events.
+ *
+ * <p>The events are the same as the ones a parser would report when reading the XML produced by
+ * {@link XMLNode#toString(String)}, including the whitespace used for indentation, so that a
+ * stylesheet produces the same result whether it is applied to the file or to the replayed tree.
+ *
+ * <p>The markup in the content of a node and the XML of nodes created from their serialized form are
+ * scanned directly into events, without a parser. Comments are only reported if the handler is also
+ * a {@link LexicalHandler}. Each fragment is checked before any of its events is reported, so that malformed
+ * markup does not produce unbalanced events: it is then reported as text with a warning, or rejected
+ * if there is no reporter, since the file would not be well-formed either.
+ *
+ * <p>Instances are not thread-safe.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+final class SAXReplay {
+
+  private static final String NEW_LINE = System.lineSeparator();
+
+  private static final char[] NEW_LINE_CHARS = NEW_LINE.toCharArray();
+
+  private final ContentHandler handler;
+
+  private final @Nullable Reporter reporter;
+
+  private final NamespaceSupport namespaces = new NamespaceSupport();
+
+  private final Scanner scanner = new Scanner();
+
+  /**
+   * @param handler The handler receiving the events
+   * @param reporter The reporter for the markup reported as text, if <code>null</code> it is rejected
+   */
+  SAXReplay(ContentHandler handler, @Nullable Reporter reporter) {
+    this.handler = handler;
+    this.reporter = reporter;
+  }
+
+  /**
+   * Replays the specified node as a complete document.
+   *
+   * @param root The root node
+   *
+   * @throws SAXException If thrown by the handler or if some markup is not well-formed without a reporter
+   */
+  void document(XMLNode root) throws SAXException {
+    this.handler.startDocument();
+    element(root, "", true);
+    this.handler.endDocument();
+  }
+
+  private void element(XMLNode node, String tabs, boolean root) throws SAXException {
+    String raw = node.getRaw();
+    if (raw != null) {
+      markup(raw, node);
+      return;
+    }
+    String qName = node.getQualifiedName();
+    characters(tabs);
+
+    // Declare the namespaces first, so that the prefixes of the attributes can be resolved
+    this.namespaces.pushContext();
+    List<String> prefixes = new ArrayList<>();
+    for (Map.Entry<String, String> att : node.getAttributes().entrySet()) {
+      String name = att.getKey();
+      if (name.equals("xmlns") || name.startsWith("xmlns:")) {
+        String prefix = name.length() > 5 ? name.substring(6) : "";
+        this.namespaces.declarePrefix(prefix, att.getValue());
+        this.handler.startPrefixMapping(prefix, att.getValue());
+        prefixes.add(prefix);
+      }
+    }
+    AttributesImpl attributes = new AttributesImpl();
+    String[] parts = new String[3];
+    for (Map.Entry<String, String> att : node.getAttributes().entrySet()) {
+      String name = att.getKey();
+      if (name.equals("xmlns") || name.startsWith("xmlns:")) continue;
+      this.namespaces.processName(name, parts, true);
+      attributes.addAttribute(nonNull(parts[0]), nonNull(parts[1]), name, "CDATA", att.getValue());
+    }
+    this.namespaces.processName(qName, parts, false);
+    String uri = nonNull(parts[0]);
+    String localName = nonNull(parts[1]);
+    this.handler.startElement(uri, localName, qName, attributes);
+
+    List<XMLNode> children = node.getChildren();
+    String content = node.getContent();
+    if (!content.isEmpty() || !children.isEmpty()) {
+      if (!children.isEmpty()) {
+        characters(NEW_LINE);
+      }
+      if (!content.isEmpty()) {
+        content(content, node);
+      }
+      for (XMLNode child : children) {
+        element(child, tabs + "\t", false);
+      }
+      if (!children.isEmpty()) {
+        characters(tabs);
+      }
+    }
+
+    this.handler.endElement(uri, localName, qName);
+    for (String prefix : prefixes) {
+      this.handler.endPrefixMapping(prefix);
+    }
+    this.namespaces.popContext();
+    if (!root) {
+      this.handler.characters(NEW_LINE_CHARS, 0, NEW_LINE_CHARS.length);
+      if ("class".equalsIgnoreCase(node.getName())) {
+        this.handler.characters(NEW_LINE_CHARS, 0, NEW_LINE_CHARS.length);
+      }
+    }
+  }
+
+  /**
+   * Reports the content of a node as it would be parsed: content without markup is text.
+   *
+   * @see XMLNode#encode(String)
+   */
+  private void content(String content, XMLNode node) throws SAXException {
+    if (content.indexOf('<') >= 0 || content.contains("]]>")) {
+      markup(XMLNode.encode(content), node);
+    } else {
+      Scanner scanner = this.scanner;
+      scanner.text.setLength(0);
+      try {
+        scanner.appendText(content, 0, content.length());
+      } catch (MalformedException ex) {
+        markup(XMLNode.encode(content), node);
+        return;
+      }
+      scanner.flush(this.handler);
+    }
+  }
+
+  /**
+   * Reports the events of the specified markup, or reports it as text if it is not well-formed.
+   */
+  private void markup(String xml, XMLNode node) throws SAXException {
+    String error = this.scanner.scan(xml, null);
+    if (error == null) {
+      this.scanner.scan(xml, this.handler);
+      return;
+    }
+    Reporter reporter = this.reporter;
+    String message = "Markup of <" + node.getQualifiedName() + "> is not well-formed: " + error;
+    if (reporter == null) throw new SAXException(message);
+    Element element = node.getElement();
+    if (element != null) {
+      reporter.print(Diagnostic.Kind.WARNING, element, message + ", transformed as text");
+    } else {
+      reporter.print(Diagnostic.Kind.WARNING, message + ", transformed as text");
+    }
+    characters(xml);
+  }
+
+  private void characters(String text) throws SAXException {
+    if (text.isEmpty()) return;
+    char[] chars = text.toCharArray();
+    this.handler.characters(chars, 0, chars.length);
+  }
+
+  private static String nonNull(@Nullable String value) {
+    return value != null ? value : "";
+  }
+
+  /**
+   * Scans a fragment of XML into SAX events.
+   *
+   * <p>The fragment can contain elements, text, entity and character references, CDATA sections,
+   * comments and processing instructions, as the content of an element. Line ends and whitespace in
+   * attribute values are normalized as a parser does.
+   */
+  private final class Scanner {
+
+    /** The text before the next markup */
+    private final StringBuilder text = new StringBuilder();
+
+    /** The qualified names of the open elements */
+    private final Deque<String> open = new ArrayDeque<>();
+
+    private final List<String> names = new ArrayList<>();
+
+    private final List<String> values = new ArrayList<>();
+
+    private final AttributesImpl attributes = new AttributesImpl();
+
+    private final String[] parts = new String[3];
+
+    private char[] buffer = new char[256];
+
+    private String xml = "";
+
+    private int pos;
+
+    /**
+     * Scans the fragment, reporting its events to the handler if there is one.
+     *
+     * @return the error if the fragment is not well-formed; <code>null</code> otherwise.
+     */
+    @Nullable String scan(String xml, @Nullable ContentHandler handler) throws SAXException {
+      this.xml = xml;
+      this.pos = 0;
+      this.text.setLength(0);
+      this.open.clear();
+      try {
+        while (this.pos < xml.length()) {
+          char c = xml.charAt(this.pos);
+          if (c == '<') {
+            flush(handler);
+            tag(handler);
+          } else if (c == '&') {
+            reference(this.text);
+          } else {
+            int start = this.pos;
+            while (this.pos < xml.length() && xml.charAt(this.pos) != '<' && xml.charAt(this.pos) != '&') {
+              this.pos++;
+            }
+            int cdataEnd = xml.indexOf("]]>", start);
+            if (cdataEnd >= 0 && cdataEnd + 3 <= this.pos) return "']]>' in text";
+            appendText(xml, start, this.pos);
+          }
+        }
+        if (!this.open.isEmpty()) return "element <" + this.open.peek() + "> is not closed";
+        flush(handler);
+        return null;
+      } catch (MalformedException ex) {
+        return ex.getMessage();
+      } finally {
+        while (!this.open.isEmpty()) {
+          this.open.pop();
+          SAXReplay.this.namespaces.popContext();
+        }
+      }
+    }
+
+    private void tag(@Nullable ContentHandler handler) throws SAXException, MalformedException {
+      String xml = this.xml;
+      if (xml.startsWith("<!--", this.pos)) {
+        int end = xml.indexOf("--", this.pos + 4);
+        if (end < 0) throw new MalformedException("comment is not closed");
+        if (!xml.startsWith("-->", end)) throw new MalformedException("'--' in comment");
+        if (handler instanceof LexicalHandler) {
+          char[] comment = xml.substring(this.pos + 4, end).replace("\r\n", "\n").replace('\r', '\n').toCharArray();
+          ((LexicalHandler) handler).comment(comment, 0, comment.length);
+        }
+        this.pos = end + 3;
+      } else if (xml.startsWith("<![CDATA[", this.pos)) {
+        int end = xml.indexOf("]]>", this.pos + 9);
+        if (end < 0) throw new MalformedException("CDATA section is not closed");
+        appendText(xml, this.pos + 9, end);
+        this.pos = end + 3;
+        flush(handler);
+      } else if (xml.startsWith("<?", this.pos)) {
+        int end = xml.indexOf("?>", this.pos + 2);
+        if (end < 0) throw new MalformedException("processing instruction is not closed");
+        this.pos += 2;
+        String target = name();
+        if (target.equalsIgnoreCase("xml")) throw new MalformedException("XML declaration in content");
+        int data = this.pos;
+        if (data < end && !isSpace(xml.charAt(data))) throw new MalformedException("expected space after <?" + target);
+        while (data < end && isSpace(xml.charAt(data))) data++;
+        this.pos = end + 2;
+        if (handler != null) handler.processingInstruction(target, xml.substring(Math.min(data, end), end));
+      } else if (xml.startsWith("</", this.pos)) {
+        this.pos += 2;
+        String qName = name();
+        skipSpaces();
+        expect('>');
+        String expected = this.open.peek();
+        if (!qName.equals(expected)) {
+          throw new MalformedException(expected == null ? "unexpected </" + qName + ">" : "expected </" + expected + "> but found </" + qName + ">");
+        }
+        this.open.pop();
+        endElement(qName, handler);
+      } else if (xml.startsWith("<!", this.pos)) {
+        throw new MalformedException("unsupported declaration");
+      } else {
+        this.pos++;
+        startElement(handler);
+      }
+    }
+
+    private void startElement(@Nullable ContentHandler handler) throws SAXException, MalformedException {
+      String xml = this.xml;
+      String qName = name();
+      this.names.clear();
+      this.values.clear();
+      boolean empty;
+      while (true) {
+        boolean space = skipSpaces();
+        if (this.pos >= xml.length()) throw new MalformedException("tag <" + qName + "> is not closed");
+        char c = xml.charAt(this.pos);
+        if (c == '>' || c == '/') {
+          empty = c == '/';
+          this.pos++;
+          if (empty) expect('>');
+          break;
+        }
+        if (!space) throw new MalformedException("expected space in <" + qName + ">");
+        String name = name();
+        if (this.names.contains(name)) throw new MalformedException("duplicate attribute " + name + " in <" + qName + ">");
+        skipSpaces();
+        expect('=');
+        skipSpaces();
+        this.names.add(name);
+        this.values.add(attributeValue());
+      }
+
+      // Declare the namespaces first, so that the prefixes of the attributes can be resolved
+      NamespaceSupport namespaces = SAXReplay.this.namespaces;
+      namespaces.pushContext();
+      this.open.push(qName);
+      for (int i = 0; i < this.names.size(); i++) {
+        String name = this.names.get(i);
+        if (name.equals("xmlns") || name.startsWith("xmlns:")) {
+          String prefix = name.length() > 5 ? name.substring(6) : "";
+          String uri = this.values.get(i);
+          if (!namespaces.declarePrefix(prefix, uri)) throw new MalformedException("invalid namespace declaration " + name);
+          if (handler != null) handler.startPrefixMapping(prefix, uri);
+        }
+      }
+      AttributesImpl attributes = this.attributes;
+      attributes.clear();
+      String[] parts = this.parts;
+      for (int i = 0; i < this.names.size(); i++) {
+        String name = this.names.get(i);
+        if (name.equals("xmlns") || name.startsWith("xmlns:")) continue;
+        if (namespaces.processName(name, parts, true) == null) throw new MalformedException("undeclared prefix in " + name);
+        attributes.addAttribute(nonNull(parts[0]), nonNull(parts[1]), name, "CDATA", this.values.get(i));
+      }
+      if (namespaces.processName(qName, parts, false) == null) throw new MalformedException("undeclared prefix in <" + qName + ">");
+      if (handler != null) handler.startElement(nonNull(parts[0]), nonNull(parts[1]), qName, attributes);
+      if (empty) {
+        this.open.pop();
+        endElement(qName, handler);
+      }
+    }
+
+    private void endElement(String qName, @Nullable ContentHandler handler) throws SAXException {
+      NamespaceSupport namespaces = SAXReplay.this.namespaces;
+      if (handler != null) {
+        String[] parts = this.parts;
+        namespaces.processName(qName, parts, false);
+        handler.endElement(nonNull(parts[0]), nonNull(parts[1]), qName);
+        Enumeration<?> prefixes = namespaces.getDeclaredPrefixes();
+        while (prefixes.hasMoreElements()) {
+          handler.endPrefixMapping((String) prefixes.nextElement());
+        }
+      }
+      namespaces.popContext();
+    }
+
+    private String attributeValue() throws MalformedException {
+      String xml = this.xml;
+      if (this.pos >= xml.length() || (xml.charAt(this.pos) != '"' && xml.charAt(this.pos) != '\'')) {
+        throw new MalformedException("expected quoted attribute value");
+      }
+      char quote = xml.charAt(this.pos++);
+      StringBuilder value = new StringBuilder();
+      while (true) {
+        if (this.pos >= xml.length()) throw new MalformedException("attribute value is not closed");
+        char c = xml.charAt(this.pos);
+        if (c == quote) {
+          this.pos++;
+          return value.toString();
+        } else if (c == '&') {
+          reference(value);
+        } else if (c == '<') {
+          throw new MalformedException("'<' in attribute value");
+        } else {
+          checkChar(c);
+          this.pos++;
+          if (c == '\r' && this.pos < xml.length() && xml.charAt(this.pos) == '\n') {
+            this.pos++;
+          }
+          value.append(c == '\t' || c == '\n' || c == '\r' ? ' ' : c);
+        }
+      }
+    }
+
+    /**
+     * Appends the character of the entity or character reference at the current position.
+     */
+    private void reference(StringBuilder out) throws MalformedException {
+      String xml = this.xml;
+      int end = xml.indexOf(';', this.pos);
+      if (end < 0) throw new MalformedException("reference is not closed");
+      String name = xml.substring(this.pos + 1, end);
+      this.pos = end + 1;
+      switch (name) {
+        case "lt": out.append('<'); return;
+        case "gt": out.append('>'); return;
+        case "amp": out.append('&'); return;
+        case "quot": out.append('"'); return;
+        case "apos": out.append('\''); return;
+        default:
+      }
+      if (!name.startsWith("#")) throw new MalformedException("undeclared entity &" + name + ";");
+      int code;
+      try {
+        code = name.startsWith("#x") ? Integer.parseInt(name.substring(2), 16) : Integer.parseInt(name.substring(1));
+      } catch (NumberFormatException ex) {
+        throw new MalformedException("invalid character reference &" + name + ";");
+      }
+      if (!Character.isValidCodePoint(code) || !isChar(code) || (code >= 0xD800 && code <= 0xDFFF)) throw new MalformedException("invalid character reference &" + name + ";");
+      out.appendCodePoint(code);
+    }
+
+    /**
+     * Appends the text, normalizing the line ends.
+     */
+    void appendText(String text, int start, int end) throws MalformedException {
+      for (int i = start; i < end; i++) {
+        char c = text.charAt(i);
+        checkChar(c);
+        if (c == '\r') {
+          if (i + 1 < end && text.charAt(i + 1) == '\n') i++;
+          c = '\n';
+        }
+        this.text.append(c);
+      }
+    }
+
+    /**
+     * Reports the text scanned so far to the handler if there is one.
+     */
+    void flush(@Nullable ContentHandler handler) throws SAXException {
+      int length = this.text.length();
+      if (length == 0) return;
+      if (handler != null) {
+        if (length > this.buffer.length) {
+          this.buffer = new char[Math.max(length, this.buffer.length * 2)];
+        }
+        this.text.getChars(0, length, this.buffer, 0);
+        handler.characters(this.buffer, 0, length);
+      }
+      this.text.setLength(0);
+    }
+
+    private String name() throws MalformedException {
+      String xml = this.xml;
+      int start = this.pos;
+      if (start >= xml.length() || !isNameStart(xml.charAt(start))) throw new MalformedException("expected a name");
+      do {
+        this.pos++;
+      } while (this.pos < xml.length() && isNameChar(xml.charAt(this.pos)));
+      return xml.substring(start, this.pos);
+    }
+
+    private boolean skipSpaces() {
+      int start = this.pos;
+      while (this.pos < this.xml.length() && isSpace(this.xml.charAt(this.pos))) this.pos++;
+      return this.pos > start;
+    }
+
+    private void expect(char c) throws MalformedException {
+      if (this.pos >= this.xml.length() || this.xml.charAt(this.pos) != c) throw new MalformedException("expected '" + c + "'");
+      this.pos++;
+    }
+
+    private void checkChar(char c) throws MalformedException {
+      if (!isChar(c)) throw new MalformedException("invalid character 0x" + Integer.toHexString(c));
+    }
+
+  }
+
+  private static boolean isSpace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+  }
+
+  private static boolean isChar(int c) {
+    return c >= 0x20 ? c != 0xFFFE && c != 0xFFFF : c == '\t' || c == '\n' || c == '\r';
+  }
+
+  private static boolean isNameStart(char c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == ':' || c >= 0xC0;
+  }
+
+  private static boolean isNameChar(char c) {
+    return isNameStart(c) || (c >= '0' && c <= '9') || c == '-' || c == '.' || c == 0xB7;
+  }
+
+  /**
+   * Thrown when a fragment is not well-formed.
+   */
+  private static final class MalformedException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    MalformedException(String message) {
+      super(message, null, false, false);
+    }
+
+  }
+
+}
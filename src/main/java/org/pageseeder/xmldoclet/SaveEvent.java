@@ -0,0 +1,50 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for each XML file saved by the doclet.
+ *
+ * <p>The duration of the event covers both the serialization of the nodes and the file I/O.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+@Name("org.pageseeder.xmldoclet.Save")
+@Label("File Saved")
+@Category("XML Doclet")
+@Description("An XML file saved by the XML doclet")
+final class SaveEvent extends Event {
+
+  @Label("Path")
+  @Description("The path of the file")
+  String path;
+
+  @Label("Bytes")
+  @Description("The size of the file")
+  @DataAmount
+  long bytes;
+
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import com.sun.source.doctree.DocTree;
+import jdk.javadoc.doclet.Reporter;
+import jdk.javadoc.doclet.Taglet;
+import org.eclipse.jdt.annotation.Nullable;
+import org.pageseeder.xmldoclet.options.TagletThresholdOption;
+
+import javax.lang.model.element.Element;
+import javax.tools.Diagnostic;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Invokes taglets on behalf of the doclet.
+ *
+ * <p>All calls to <code>Taglet#toString(List, Element)</code> should go through this class so that
+ * the contract of each taglet is honoured: the output of a {@link ThreadSafeTaglet} only depends on
+ * its tags, so it is invoked without the element and its output is cached by tag content, limited to
+ * the {@value #CACHE_SIZE} most recently used entries per taglet. Any other taglet is always called.
+ *
+ * <p>Each call is timed so that the taglets with calls slower than the <code>-tagletthreshold</code> can
+ * be reported at the end of the run.
+ *
+ * <p>This class is not thread-safe and must be used from the thread running the doclet.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+final class TagletInvoker {
+
+  /**
+   * The maximum number of outputs cached for each taglet.
+   */
+  static final int CACHE_SIZE = 1024;
+
+  /**
+   * Output of thread-safe taglets by taglet and tag content, most recently used last.
+   */
+  private final Map<Taglet, Map<String, String>> cache = new HashMap<>();
+
+  /**
+   * Profiling data by taglet.
+   */
+  private final Map<Taglet, Profile> profiles = new HashMap<>();
+
+  private final Reporter reporter;
+
+  private final TagletThresholdOption thresholdOption;
+
+  /**
+   * @param reporter        The reporter to use for slow calls and the summary.
+   * @param thresholdOption The option specifying the threshold for slow calls.
+   */
+  TagletInvoker(Reporter reporter, TagletThresholdOption thresholdOption) {
+    this.reporter = reporter;
+    this.thresholdOption = thresholdOption;
+  }
+
+  /**
+   * Returns the output of the taglet for the specified tags.
+   *
+   * @param taglet  The taglet to invoke
+   * @param tags    The tags to process
+   * @param element The element the tags belong to, only passed to taglets which may depend on it
+   *
+   * @return The output of the taglet
+   */
+  String invoke(Taglet taglet, List<? extends DocTree> tags, @Nullable Element element) {
+    if (!(taglet instanceof ThreadSafeTaglet)) {
+      return call(taglet, tags, element, element);
+    }
+    Map<String, String> results = this.cache.computeIfAbsent(taglet, t -> newResults());
+    String key = toKey(tags);
+    String result = results.get(key);
+    if (result == null) {
+      result = call(taglet, tags, null, element);
+      results.put(key, result);
+    } else {
+      profile(taglet).hits++;
+    }
+    return result;
+  }
+
+  /**
+   * Prints a summary of the time spent in each taglet with a call slower than the threshold, slowest
+   * first.
+   *
+   * <p>Nothing is printed unless the <code>-tagletthreshold</code> option was specified.
+   */
+  void report() {
+    if (!this.thresholdOption.enabled()) return;
+    long threshold = TimeUnit.MILLISECONDS.toNanos(this.thresholdOption.getThreshold());
+    List<Map.Entry<Taglet, Profile>> entries = new ArrayList<>();
+    for (Map.Entry<Taglet, Profile> entry : this.profiles.entrySet()) {
+      if (entry.getValue().max > threshold) {
+        entries.add(entry);
+      }
+    }
+    if (entries.isEmpty()) return;
+    entries.sort((a, b) -> Long.compare(b.getValue().total, a.getValue().total));
+    this.reporter.print(Diagnostic.Kind.NOTE, "Taglets slower than " + this.thresholdOption.getThreshold() + "ms (slowest first):");
+    for (Map.Entry<Taglet, Profile> entry : entries) {
+      Taglet taglet = entry.getKey();
+      Profile profile = entry.getValue();
+      String name = taglet.isInlineTag() ? "{@" + taglet.getName() + "}" : "@" + taglet.getName();
+      Class<?> type = taglet instanceof Enum ? ((Enum<?>) taglet).getDeclaringClass() : taglet.getClass();
+      this.reporter.print(Diagnostic.Kind.NOTE, "  " + name
+          + " [" + type.getName() + "]: "
+          + profile.calls + " calls, "
+          + profile.hits + " cached, "
+          + toMillis(profile.total) + "ms total, "
+          + toMillis(profile.max) + "ms max");
+    }
+  }
+
+  /**
+   * Calls the taglet and records how long it took.
+   *
+   * @param element  The element passed to the taglet
+   * @param location The element to report slow calls on
+   */
+  private String call(Taglet taglet, List<? extends DocTree> tags, @Nullable Element element, @Nullable Element location) {
+    long start = System.nanoTime();
+    String result = taglet.toString(tags, element);
+    long duration = System.nanoTime() - start;
+    Profile profile = profile(taglet);
+    profile.calls++;
+    profile.total += duration;
+    profile.max = Math.max(profile.max, duration);
+    if (this.thresholdOption.enabled() && duration > TimeUnit.MILLISECONDS.toNanos(this.thresholdOption.getThreshold())) {
+      String message = "Taglet " + taglet.getName() + " took " + toMillis(duration) + "ms";
+      if (location != null) {
+        this.reporter.print(Diagnostic.Kind.WARNING, location, message);
+      } else {
+        this.reporter.print(Diagnostic.Kind.WARNING, message);
+      }
+    }
+    return result;
+  }
+
+  private Profile profile(Taglet taglet) {
+    return this.profiles.computeIfAbsent(taglet, t -> new Profile());
+  }
+
+  /**
+   * @return a new cache for the output of a taglet, evicting the least recently used entries.
+   */
+  private static Map<String, String> newResults() {
+    return new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+        return size() > CACHE_SIZE;
+      }
+    };
+  }
+
+  /**
+   * Returns the key to use for the cache, based on the source of the tags.
+   */
+  private static String toKey(List<? extends DocTree> tags) {
+    if (tags.size() == 1) return tags.get(0).toString();
+    StringBuilder key = new StringBuilder();
+    for (DocTree tag : tags) {
+      key.append(tag).append('\u0000');
+    }
+    return key.toString();
+  }
+
+  private static String toMillis(long nanos) {
+    return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+  }
+
+  /**
+   * Profiling data for a taglet.
+   */
+  private static final class Profile {
+
+    /** Number of actual calls to the taglet */
+    private long calls = 0;
+
+    /** Number of calls served from the cache */
+    private long hits = 0;
+
+    /** Cumulative time spent in the taglet in nanoseconds */
+    private long total = 0;
+
+    /** Longest call in nanoseconds */
+    private long max = 0;
+
+  }
+
+}
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import jdk.javadoc.doclet.Taglet;
+
+/**
+ * Marker interface for taglets that are thread-safe and context-free.
+ *
+ * <p>A taglet implementing this interface declares that:
+ * <ul>
+ *   <li>its <code>toString(List, Element)</code> method can be called concurrently from several threads;</li>
+ *   <li>its output only depends on the tags it is given, not on the element they belong to.</li>
+ * </ul>
+ *
+ * <p>To enforce the second point, the doclet always invokes such taglets with a <code>null</code>
+ * element, and reuses their output for tags with identical content, including across runs when the
+ * render cache is enabled.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+public interface ThreadSafeTaglet extends Taglet {
+}
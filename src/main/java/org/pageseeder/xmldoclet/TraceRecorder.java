@@ -0,0 +1,132 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Records the spans of a doclet run as a timeline in the Chrome trace event format.
+ *
+ * <p>The resulting file can be opened with Perfetto or <code>chrome://tracing</code>. Each span is
+ * recorded as a complete event ("X") on the thread that produced it.
+ *
+ * <p>Spans are appended to a lock-free queue so that recording from several threads does not add
+ * contention to the measurements; the JSON is only produced when the trace is saved.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+final class TraceRecorder {
+
+  /**
+   * The spans recorded so far.
+   */
+  private final Queue<Span> spans = new ConcurrentLinkedQueue<>();
+
+  /**
+   * The name of the threads which recorded spans by thread ID.
+   */
+  private final Map<Long, String> threads = new ConcurrentHashMap<>();
+
+  /**
+   * The origin of the timeline in nanoseconds.
+   */
+  private final long origin = System.nanoTime();
+
+  /**
+   * Records a span ending now.
+   *
+   * @param name     The name of the span
+   * @param category The category of the span
+   * @param start    The time the span started as returned by <code>System.nanoTime()</code>
+   */
+  void record(String name, String category, long start) {
+    long end = System.nanoTime();
+    Thread thread = Thread.currentThread();
+    long tid = thread.getId();
+    if (!this.threads.containsKey(tid)) {
+      this.threads.put(tid, thread.getName());
+    }
+    this.spans.add(new Span(name, category, tid, start - this.origin, end - start));
+  }
+
+  /**
+   * Saves the trace as JSON.
+   *
+   * @param file The file to write
+   *
+   * @throws DocletException If the file could not be saved.
+   */
+  void save(File file) throws DocletException {
+    File dir = file.getAbsoluteFile().getParentFile();
+    if (dir != null && !dir.exists() && !dir.mkdirs()) {
+      throw new DocletException(null, "Unable to create directory "+dir.getAbsolutePath());
+    }
+    try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+      out.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+      boolean first = true;
+      for (Map.Entry<Long, String> thread : this.threads.entrySet()) {
+        if (!first) out.write(",\n");
+        out.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":" + thread.getKey()
+            + ",\"args\":{\"name\":" + JSON.string(thread.getValue()) + "}}");
+        first = false;
+      }
+      for (Span span : this.spans) {
+        if (!first) out.write(",\n");
+        out.write("{\"name\":" + JSON.string(span.name) + ",\"cat\":" + JSON.string(span.category) + ",\"ph\":\"X\""
+            + ",\"ts\":" + toMicros(span.start) + ",\"dur\":" + toMicros(span.duration)
+            + ",\"pid\":1,\"tid\":" + span.tid + "}");
+        first = false;
+      }
+      out.write("\n]}\n");
+    } catch (IOException ex) {
+      throw new DocletException(null, "Unable to save trace: "+file.getAbsolutePath(), ex);
+    }
+  }
+
+  private static String toMicros(long nanos) {
+    return String.format(Locale.ROOT, "%.3f", nanos / 1_000.0);
+  }
+
+  /**
+   * A span on the timeline, times are in nanoseconds.
+   */
+  private static final class Span {
+
+    private final String name;
+    private final String category;
+    private final long tid;
+    private final long start;
+    private final long duration;
+
+    Span(String name, String category, long tid, long start, long duration) {
+      this.name = name;
+      this.category = category;
+      this.tid = tid;
+      this.start = start;
+      this.duration = duration;
+    }
+  }
+
+}
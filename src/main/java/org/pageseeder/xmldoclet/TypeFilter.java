@@ -0,0 +1,152 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import java.util.*;
+
+/**
+ * Filters classes by their superclasses, interfaces and annotations.
+ *
+ * <p>The names specified with the <code>-extends</code>, <code>-implements</code> and
+ * <code>-annotated</code> options are compiled into sets of canonical names, type arguments are
+ * ignored. Superclasses and interfaces match whether they are direct or inherited: whether the
+ * hierarchy of a type contains one of the names is computed once per type and reused for its subtypes,
+ * so that each class is checked in constant time on average.
+ *
+ * <p>Annotations only match when they are declared on the class itself.
+ *
+ * <p>Instances are not thread-safe.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+final class TypeFilter {
+
+  private final Set<String> superclasses;
+
+  private final Set<String> interfaces;
+
+  private final Set<String> annotations;
+
+  /**
+   * Whether the superclasses of a type include one of the specified superclasses.
+   */
+  private final Map<TypeElement, Boolean> extending = new HashMap<>();
+
+  /**
+   * Whether the supertypes of a type include one of the specified interfaces.
+   */
+  private final Map<TypeElement, Boolean> implementing = new HashMap<>();
+
+  /**
+   * @param superclasses The names of the superclasses to match
+   * @param interfaces   The names of the interfaces to match
+   * @param annotations  The names of the annotations to match
+   */
+  TypeFilter(Collection<String> superclasses, Collection<String> interfaces, Collection<String> annotations) {
+    this.superclasses = toCanonicalNames(superclasses);
+    this.interfaces = toCanonicalNames(interfaces);
+    this.annotations = toCanonicalNames(annotations);
+  }
+
+  /**
+   * @return <code>true</code> if no class is filtered out; <code>false</code> otherwise.
+   */
+  boolean isEmpty() {
+    return this.superclasses.isEmpty() && this.interfaces.isEmpty() && this.annotations.isEmpty();
+  }
+
+  /**
+   * Indicates whether the specified class matches all the filters.
+   *
+   * @param element The class
+   *
+   * @return <code>true</code> if the class should be included; <code>false</code> otherwise.
+   */
+  boolean matches(TypeElement element) {
+    if (!this.superclasses.isEmpty() && !extendsAny(element)) return false;
+    if (!this.interfaces.isEmpty() && !implementsAny(element)) return false;
+    return this.annotations.isEmpty() || isAnnotated(element);
+  }
+
+  private boolean extendsAny(TypeElement element) {
+    Boolean matches = this.extending.get(element);
+    if (matches == null) {
+      // Guards against cycles in erroneous code
+      this.extending.put(element, Boolean.FALSE);
+      TypeElement superclass = toElement(element.getSuperclass());
+      matches = superclass != null
+          && (this.superclasses.contains(superclass.getQualifiedName().toString()) || extendsAny(superclass));
+      this.extending.put(element, matches);
+    }
+    return matches;
+  }
+
+  private boolean implementsAny(TypeElement element) {
+    Boolean matches = this.implementing.get(element);
+    if (matches == null) {
+      // Guards against cycles in erroneous code
+      this.implementing.put(element, Boolean.FALSE);
+      matches = false;
+      for (TypeMirror mirror : element.getInterfaces()) {
+        TypeElement type = toElement(mirror);
+        if (type != null && (this.interfaces.contains(type.getQualifiedName().toString()) || implementsAny(type))) {
+          matches = true;
+          break;
+        }
+      }
+      if (!matches) {
+        TypeElement superclass = toElement(element.getSuperclass());
+        matches = superclass != null && implementsAny(superclass);
+      }
+      this.implementing.put(element, matches);
+    }
+    return matches;
+  }
+
+  private boolean isAnnotated(TypeElement element) {
+    for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+      TypeElement type = toElement(annotation.getAnnotationType());
+      if (type != null && this.annotations.contains(type.getQualifiedName().toString())) return true;
+    }
+    return false;
+  }
+
+  private static @Nullable TypeElement toElement(@Nullable TypeMirror mirror) {
+    if (!(mirror instanceof DeclaredType)) return null;
+    Element element = ((DeclaredType) mirror).asElement();
+    return element instanceof TypeElement ? (TypeElement) element : null;
+  }
+
+  private static Set<String> toCanonicalNames(Collection<String> names) {
+    Set<String> canonical = new HashSet<>();
+    for (String name : names) {
+      int generic = name.indexOf('<');
+      canonical.add((generic >= 0 ? name.substring(0, generic) : name).trim());
+    }
+    return canonical;
+  }
+
+}
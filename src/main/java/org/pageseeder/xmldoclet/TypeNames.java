@@ -0,0 +1,274 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.TypeVariable;
+import javax.lang.model.type.WildcardType;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders the simple and full names of types, reusing the names of the types already rendered.
+ *
+ * <p>Types are looked up by a structural key, so that the name of each distinct type is only rendered
+ * once per run: primitive types by their kind, type variables and declared types without type
+ * arguments by their element, and parameterized types, arrays and wildcards by their element or kind
+ * and the names of their type arguments, component or bound, which are looked up first. The full name
+ * is then assembled from these names the same way as {@link TypeMirror#toString()}.
+ *
+ * <p>Only annotated types and unusual types such as intersections are rendered to be looked up.
+ *
+ * <p>Instances are not thread-safe and must only be used for a single run, since elements are not
+ * shared between runs.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+final class TypeNames {
+
+  /**
+   * Names of types by structural key.
+   */
+  private final Map<Object, TypeName> names = new HashMap<>();
+
+  /**
+   * Names of the types which have no structural key by full name.
+   */
+  private final Map<String, TypeName> rendered = new HashMap<>();
+
+  /**
+   * Pool of the simple names.
+   */
+  private final Map<String, String> simpleNames = new HashMap<>();
+
+  /**
+   * Returns the names of the specified type.
+   *
+   * @param type The type
+   *
+   * @return The simple and full names of that type.
+   */
+  TypeName get(TypeMirror type) {
+    if (type.getAnnotationMirrors().isEmpty()) {
+      switch (type.getKind()) {
+        case DECLARED:
+          TypeName declared = getDeclared((DeclaredType) type);
+          if (declared != null) return declared;
+          break;
+        case ARRAY:
+          TypeName array = getArray((ArrayType) type);
+          if (array != null) return array;
+          break;
+        case TYPEVAR:
+          Element variable = ((TypeVariable) type).asElement();
+          String name = variable.getSimpleName().toString();
+          // Captured type variables are rendered differently
+          if (name.indexOf('<') < 0) return lookup(variable, name, name);
+          break;
+        case WILDCARD:
+          return getWildcard((WildcardType) type);
+        default:
+          if (type.getKind().isPrimitive() || type.getKind() == TypeKind.VOID) {
+            String primitive = type.toString();
+            return lookup(type.getKind(), primitive, primitive);
+          }
+      }
+    }
+    String full = type.toString();
+    TypeName name = this.rendered.get(full);
+    if (name == null) {
+      String simple = type instanceof DeclaredType ? ((DeclaredType) type).asElement().getSimpleName().toString() : full;
+      name = newTypeName(simple, full);
+      this.rendered.put(full, name);
+    }
+    return name;
+  }
+
+  /**
+   * Returns the names of a declared type, keyed by its element and the names of its enclosing type
+   * and type arguments.
+   *
+   * @return the names or <code>null</code> if the type must be rendered.
+   */
+  private @Nullable TypeName getDeclared(DeclaredType type) {
+    TypeElement element = (TypeElement) type.asElement();
+    NestingKind nesting = element.getNestingKind();
+    if (nesting != NestingKind.TOP_LEVEL && nesting != NestingKind.MEMBER) return null;
+    // The key is the element alone when the name only depends on it
+    if (hasNoTypeArguments(type)) {
+      TypeName name = this.names.get(element);
+      return name != null ? name : lookup(element, element.getSimpleName().toString(), element.getQualifiedName().toString());
+    }
+    // Inner classes always have an enclosing type, so it is the first part for the same element
+    TypeMirror enclosing = type.getEnclosingType();
+    int offset = enclosing.getKind() == TypeKind.DECLARED ? 1 : 0;
+    List<? extends TypeMirror> arguments = type.getTypeArguments();
+    TypeName[] parts = new TypeName[offset + arguments.size()];
+    if (offset == 1) parts[0] = get(enclosing);
+    for (int i = 0; i < arguments.size(); i++) {
+      parts[offset + i] = get(arguments.get(i));
+    }
+    Key key = new Key(element, parts);
+    TypeName name = this.names.get(key);
+    if (name != null) return name;
+    String simple = element.getSimpleName().toString();
+    StringBuilder full = new StringBuilder();
+    if (offset == 1) full.append(parts[0].full).append('.').append(simple);
+    else full.append(element.getQualifiedName());
+    if (!arguments.isEmpty()) {
+      full.append('<');
+      for (int i = offset; i < parts.length; i++) {
+        if (i > offset) full.append(',');
+        full.append(parts[i].full);
+      }
+      full.append('>');
+    }
+    return lookup(key, simple, full.toString());
+  }
+
+  /**
+   * Returns the names of an array type, keyed by the names of its component type.
+   *
+   * @return the names or <code>null</code> if the type must be rendered.
+   */
+  private @Nullable TypeName getArray(ArrayType type) {
+    // Annotations on the dimensions are rendered in a different order
+    TypeMirror component = type.getComponentType();
+    for (TypeMirror t = component; t.getKind() == TypeKind.ARRAY; t = ((ArrayType) t).getComponentType()) {
+      if (!t.getAnnotationMirrors().isEmpty()) return null;
+    }
+    TypeName name = get(component);
+    String full = name.full + "[]";
+    return lookup(new Key(TypeKind.ARRAY, name), full, full);
+  }
+
+  /**
+   * Returns the names of a wildcard, keyed by the names of its bound.
+   */
+  private TypeName getWildcard(WildcardType type) {
+    TypeMirror extendsBound = type.getExtendsBound();
+    TypeMirror superBound = type.getSuperBound();
+    String prefix = extendsBound != null ? "? extends " : superBound != null ? "? super " : "?";
+    TypeMirror bound = extendsBound != null ? extendsBound : superBound;
+    if (bound == null) return lookup(prefix, prefix, prefix);
+    TypeName name = get(bound);
+    String full = prefix + name.full;
+    return lookup(new Key(prefix, name), full, full);
+  }
+
+  /**
+   * Returns the names under the specified key, creating them with the specified names if needed.
+   */
+  private TypeName lookup(Object key, String simple, String full) {
+    TypeName name = this.names.get(key);
+    if (name == null) {
+      name = newTypeName(simple, full);
+      this.names.put(key, name);
+    }
+    return name;
+  }
+
+  private TypeName newTypeName(String simple, String full) {
+    String pooled = this.simpleNames.putIfAbsent(simple, simple);
+    return new TypeName(pooled != null ? pooled : simple, full);
+  }
+
+  /**
+   * @return <code>true</code> if neither the type or its enclosing types have type arguments or
+   *         annotations on the enclosing types.
+   */
+  private static boolean hasNoTypeArguments(DeclaredType type) {
+    if (!type.getTypeArguments().isEmpty()) return false;
+    TypeMirror enclosing = type.getEnclosingType();
+    return enclosing.getKind() != TypeKind.DECLARED
+        || (enclosing.getAnnotationMirrors().isEmpty() && hasNoTypeArguments((DeclaredType) enclosing));
+  }
+
+  /**
+   * A structural key: an element or kind and the names of the types it is made of.
+   *
+   * <p>Since the names are unique for each key, they are compared by identity.
+   */
+  private static final class Key {
+
+    private final Object head;
+
+    private final TypeName[] parts;
+
+    private final int hash;
+
+    Key(Object head, TypeName... parts) {
+      this.head = head;
+      this.parts = parts;
+      int hash = head.hashCode();
+      for (TypeName part : parts) {
+        hash = hash * 31 + System.identityHashCode(part);
+      }
+      this.hash = hash;
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hash;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Key)) return false;
+      Key other = (Key) o;
+      if (this.hash != other.hash || !this.head.equals(other.head) || this.parts.length != other.parts.length) return false;
+      for (int i = 0; i < this.parts.length; i++) {
+        if (this.parts[i] != other.parts[i]) return false;
+      }
+      return true;
+    }
+  }
+
+  /**
+   * The simple and full names of a type.
+   */
+  static final class TypeName {
+
+    /**
+     * The simple name of the type, for example "List" for "java.util.List&lt;java.lang.String&gt;".
+     */
+    final String simple;
+
+    /**
+     * The full name of the type, identical to {@link TypeMirror#toString()}.
+     */
+    final String full;
+
+    TypeName(String simple, String full) {
+      this.simple = simple;
+      this.full = full;
+    }
+  }
+
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Reverse index of the documented types: which classes extend or implement them and which methods
+ * and constructors return or accept them.
+ *
+ * <p>The index is built in a single pass over the documented classes, from their superclass, their
+ * interfaces and the return and parameter types of their methods and constructors. Only the usages
+ * of the types included in the run are recorded; arrays count as usages of their component type but
+ * type arguments do not.
+ *
+ * <p>Instances are not thread-safe and must only be used for a single run.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+final class Usages {
+
+  /**
+   * The name of the file listing the usages.
+   */
+  static final String NAME = "usages.xml";
+
+  /**
+   * The names of the usage nodes in the order they are listed for each type.
+   */
+  private static final List<String> KINDS = List.of("subclass", "subinterface", "implementor", "constructor", "method");
+
+  /**
+   * Usages by qualified name of the type used.
+   */
+  private final Map<String, Entry> entries = new TreeMap<>();
+
+  /**
+   * Whether a type is included in the run.
+   */
+  private final Predicate<TypeElement> included;
+
+  /**
+   * Whether a member is visible enough to be documented.
+   */
+  private final Predicate<Element> visible;
+
+  private final TypeNames typeNames;
+
+  /**
+   * @param included  Whether a type is included in the run
+   * @param visible   Whether a member is visible enough to be documented
+   * @param typeNames The type names of the run
+   */
+  Usages(Predicate<TypeElement> included, Predicate<Element> visible, TypeNames typeNames) {
+    this.included = included;
+    this.visible = visible;
+    this.typeNames = typeNames;
+  }
+
+  /**
+   * Records the usages by the specified class and its visible constructors and methods.
+   *
+   * @param type The documented class
+   */
+  void add(TypeElement type) {
+    String name = type.getQualifiedName().toString();
+
+    // Supertypes
+    TypeElement superclass = toTypeElement(type.getSuperclass());
+    if (superclass != null) {
+      entry(superclass).add(new XMLNode("subclass").attribute("class", name));
+    }
+    String relation = type.getKind() == ElementKind.INTERFACE || type.getKind() == ElementKind.ANNOTATION_TYPE
+        ? "subinterface" : "implementor";
+    for (TypeMirror mirror : type.getInterfaces()) {
+      TypeElement supertype = toTypeElement(mirror);
+      if (supertype != null) {
+        entry(supertype).add(new XMLNode(relation).attribute("class", name));
+      }
+    }
+
+    // Members
+    List<? extends Element> members = type.getEnclosedElements();
+    for (ExecutableElement constructor : ElementFilter.constructorsIn(members)) {
+      if (!this.visible.test(constructor)) continue;
+      addParameters(name, constructor, "constructor");
+    }
+    for (ExecutableElement method : ElementFilter.methodsIn(members)) {
+      if (!this.visible.test(method)) continue;
+      TypeElement returned = toTypeElement(method.getReturnType());
+      if (returned != null) {
+        entry(returned).add(toMemberNode(name, method, "method", "return"));
+      }
+      addParameters(name, method, "method");
+    }
+  }
+
+  /**
+   * Returns the "usages" node listing the usages of each type by qualified name.
+   *
+   * @return the node to save as the usages file.
+   */
+  XMLNode toNode() {
+    XMLNode usages = new XMLNode("usages");
+    for (Map.Entry<String, Entry> entry : this.entries.entrySet()) {
+      XMLNode node = new XMLNode("type");
+      node.attribute("name", entry.getKey());
+      for (String kind : KINDS) {
+        List<XMLNode> nodes = entry.getValue().nodes.get(kind);
+        if (nodes != null) {
+          node.child(nodes);
+        }
+      }
+      usages.child(node);
+    }
+    return usages;
+  }
+
+  private void addParameters(String name, ExecutableElement member, String kind) {
+    Set<TypeElement> accepted = new LinkedHashSet<>();
+    for (VariableElement parameter : member.getParameters()) {
+      TypeElement type = toTypeElement(parameter.asType());
+      if (type != null) {
+        accepted.add(type);
+      }
+    }
+    for (TypeElement type : accepted) {
+      entry(type).add(toMemberNode(name, member, kind, "parameter"));
+    }
+  }
+
+  private XMLNode toMemberNode(String name, ExecutableElement member, String kind, String usage) {
+    XMLNode node = new XMLNode(kind);
+    node.attribute("class", name);
+    if (member.getKind() == ElementKind.METHOD) {
+      node.attribute("name", member.getSimpleName().toString());
+    }
+    node.attribute("signature", toSignature(member));
+    node.attribute("usage", usage);
+    return node;
+  }
+
+  /**
+   * @return the simple name of the member followed by the full types of its parameters.
+   */
+  private String toSignature(ExecutableElement member) {
+    StringBuilder signature = new StringBuilder();
+    signature.append(member.getKind() == ElementKind.CONSTRUCTOR
+        ? member.getEnclosingElement().getSimpleName()
+        : member.getSimpleName());
+    signature.append('(');
+    List<? extends VariableElement> parameters = member.getParameters();
+    for (int i = 0; i < parameters.size(); i++) {
+      if (i > 0) signature.append(',');
+      signature.append(this.typeNames.get(parameters.get(i).asType()).full);
+    }
+    return signature.append(')').toString();
+  }
+
+  private Entry entry(TypeElement type) {
+    return this.entries.computeIfAbsent(type.getQualifiedName().toString(), name -> new Entry());
+  }
+
+  /**
+   * @return the class used by the type if it is included in the run, arrays resolve to their component.
+   */
+  private @Nullable TypeElement toTypeElement(TypeMirror type) {
+    while (type.getKind() == TypeKind.ARRAY) {
+      type = ((ArrayType) type).getComponentType();
+    }
+    if (type.getKind() != TypeKind.DECLARED) return null;
+    TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+    return this.included.test(element) ? element : null;
+  }
+
+  /**
+   * The usages of a type grouped by node name.
+   */
+  private static final class Entry {
+
+    private final Map<String, List<XMLNode>> nodes = new HashMap<>();
+
+    void add(XMLNode node) {
+      this.nodes.computeIfAbsent(node.getName(), name -> new ArrayList<>()).add(node);
+    }
+  }
+
+}
@@ -21,19 +21,22 @@ import jdk.javadoc.doclet.DocletEnvironment;
 import jdk.javadoc.doclet.Reporter;
 import jdk.javadoc.doclet.Taglet;
 import org.eclipse.jdt.annotation.Nullable;
+import org.pageseeder.xmldoclet.options.PartsOption.Part;
 
 import javax.lang.model.SourceVersion;
 import javax.lang.model.element.*;
-import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.ElementFilter;
 import javax.lang.model.util.Elements;
 import javax.tools.Diagnostic;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.sax.TransformerHandler;
 import java.io.File;
+import java.io.IOException;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 /**
  * The Doclet implementation to use with javadoc.
@@ -49,9 +52,7 @@ public final class XMLDoclet implements Doclet {
   /**
    * The date format matching ISO 8601, easier to parse with XSLT.
    */
-  private static final String ISO_8601 = "yyyy-MM-dd'T'HH:mm:ss";
-
-  private static final Set<Modifier> BOOLEAN_MODIFIERS = EnumSet.complementOf(EnumSet.of(Modifier.PRIVATE, Modifier.PUBLIC, Modifier.PROTECTED));
+  static final String ISO_8601 = "yyyy-MM-dd'T'HH:mm:ss";
 
   /**
    *
@@ -81,6 +82,26 @@ public final class XMLDoclet implements Doclet {
    */
   private DocletEnvironment env;
 
+  /**
+   * The statistics for the current run.
+   */
+  private RunStats stats = RunStats.DISABLED;
+
+  /**
+   * The cache of rendered classes, if any.
+   */
+  private @Nullable RenderCache cache;
+
+  /**
+   * The names of the types rendered during the current run.
+   */
+  private TypeNames typeNames = new TypeNames();
+
+  /**
+   * The annotations rendered during the current run, unless the nodes are handed to a consumer.
+   */
+  private @Nullable AnnotationCache annotations;
+
   /**
    * @return The Doclet environment.
    */
@@ -119,17 +140,169 @@ public final class XMLDoclet implements Doclet {
   @Override
   public boolean run(DocletEnvironment env) {
     this.env = env;
-    List<XMLNode> nodes = new ArrayList<>();
+    // The usages and hierarchy of the classes which did not change are unknown when updating
+    if (this.options.updateIndex() && this.options.writeUsages()) {
+      this.reporter.print(Diagnostic.Kind.ERROR, "The -usages option cannot be used with -update");
+      return false;
+    }
+    if (this.options.updateIndex() && this.options.getHierarchyFormat() != null) {
+      this.reporter.print(Diagnostic.Kind.ERROR, "The -hierarchy option cannot be used with -update");
+      return false;
+    }
+    TraceRecorder trace = this.options.getTraceFile() != null ? new TraceRecorder() : null;
+    this.stats = new RunStats(this.options.getStatsFile() != null, trace);
+    Consumer<XMLNode> consumer = XMLDocletRunner.CONSUMER.get();
+    this.cache = consumer == null ? newRenderCache() : null;
+    this.typeNames = new TypeNames();
+    this.annotations = consumer == null ? new AnnotationCache() : null;
+
+    // The nodes are handed to the caller instead
+    if (consumer != null) {
+      process(consumer, null);
+      this.options.getTagletInvoker().report();
+      saveStats();
+      return true;
+    }
+
+    XMLNode meta = new XMLNode("meta");
+    DateFormat df = new SimpleDateFormat(ISO_8601);
+    meta.attribute("created", df.format(new Date()));
+
+    // Single file
+    if (!this.options.useMultipleFiles()) {
+      if (this.options.resumeFromCheckpoint()) {
+        this.reporter.print(Diagnostic.Kind.WARNING, "The -resume option only applies to multiple files");
+      }
+      List<XMLNode> nodes = new ArrayList<>();
+      process(nodes::add, null);
+      Set<TypeElement> types = documentedTypes();
+      XMLNode usages = toUsagesNode(types);
+      Hierarchy hierarchy = toHierarchy(types);
+      this.stats.begin(RunStats.Phase.SAVE);
+      try {
+        save(meta, nodes);
+        saveUsages(meta, usages);
+        saveHierarchy(meta, hierarchy);
+      } catch (DocletException ex) {
+        reporter.print(Diagnostic.Kind.ERROR, ex.getElement(), ex.getMessage());
+        return false;
+      } finally {
+        this.stats.end(RunStats.Phase.SAVE);
+        this.options.getTagletInvoker().report();
+        closeRenderCache();
+        saveStats();
+      }
+      return true;
+    }
+
+    // Multiple files are saved as they are processed, only recorded in a checkpoint when resuming
+    final Checkpoint checkpoint;
+    try {
+      checkpoint = openCheckpoint();
+    } catch (DocletException ex) {
+      reporter.print(Diagnostic.Kind.ERROR, ex.getMessage());
+      return false;
+    }
+    List<XMLNode> references = checkpoint != null ? new ArrayList<>(checkpoint.references()) : new ArrayList<>();
+    try {
+      process(node -> save(meta, node, references, checkpoint), checkpoint);
+      Set<TypeElement> types = documentedTypes();
+      XMLNode usages = toUsagesNode(types);
+      Hierarchy hierarchy = toHierarchy(types);
+      this.stats.begin(RunStats.Phase.SAVE);
+      try {
+        saveIndex(meta, references);
+        saveUsages(meta, usages);
+        saveHierarchy(meta, hierarchy);
+      } finally {
+        this.stats.end(RunStats.Phase.SAVE);
+      }
+      if (checkpoint != null) {
+        checkpoint.delete();
+      }
+    } catch (DocletException ex) {
+      reporter.print(Diagnostic.Kind.ERROR, ex.getElement(), ex.getMessage());
+      return false;
+    } catch (IOException ex) {
+      reporter.print(Diagnostic.Kind.WARNING, "Unable to delete checkpoint: " + ex.getMessage());
+    } finally {
+      if (checkpoint != null) {
+        try {
+          checkpoint.close();
+        } catch (IOException ex) {
+          reporter.print(Diagnostic.Kind.WARNING, "Unable to close checkpoint: " + ex.getMessage());
+        }
+      }
+      this.options.getTagletInvoker().report();
+      closeRenderCache();
+      saveStats();
+    }
+
+    return true;
+  }
 
+  /**
+   * Opens the checkpoint to resume from and record the files written, if the run can be resumed.
+   *
+   * @return the checkpoint or <code>null</code> if the <code>-resume</code> option was not used.
+   *
+   * @throws DocletException If the checkpoint could not be read or created.
+   */
+  private @Nullable Checkpoint openCheckpoint() throws DocletException {
+    if (!this.options.resumeFromCheckpoint()) return null;
+    Checkpoint checkpoint = Checkpoint.open(this.options.getDirectory(), this.options.useSubFolders(),
+        this.options.getOutputFingerprint());
+    if (checkpoint.isDiscarded()) {
+      this.reporter.print(Diagnostic.Kind.WARNING, "Checkpoint ignored: it was written with other options");
+    } else {
+      this.reporter.print(Diagnostic.Kind.NOTE, "Resuming: " + checkpoint.size() + " files already written");
+    }
+    return checkpoint;
+  }
+
+  /**
+   * Processes the included classes and packages and passes their nodes to the specified output.
+   *
+   * @param output     Receives the class and package nodes
+   * @param checkpoint The checkpoint listing the classes and packages to skip, if any
+   */
+  private void process(Consumer<XMLNode> output, @Nullable Checkpoint checkpoint) {
     // Iterate over elements
     for (TypeElement element : ElementFilter.typesIn(this.env.getIncludedElements())) {
       // Apply the filters from options
-      if (this.options.filter(element)) {
+      this.stats.begin(RunStats.Phase.FILTER);
+      boolean included = this.options.filter(element);
+      this.stats.end(RunStats.Phase.FILTER);
+      if (included && !this.options.isVisible(element)) {
+        this.stats.add(RunStats.Counter.PRUNED_TYPES, 1);
+        included = false;
+      }
+      if (included && checkpoint != null && checkpoint.contains("class", element.getQualifiedName())) {
+        this.stats.add(RunStats.Counter.RESUMED, 1);
+        included = false;
+      }
+      if (included) {
+        XMLNode node = null;
+        this.stats.begin(RunStats.Phase.CLASS);
+        ClassEvent event = new ClassEvent();
+        event.begin();
         try {
-          nodes.add(toClassNode(element));
+          node = toCachedClassNode(element);
+          this.stats.add(RunStats.Counter.CLASSES, 1);
         } catch (Exception ex) {
           reporter.print(Diagnostic.Kind.ERROR, element, ex.getMessage());
           ex.printStackTrace();
+        } finally {
+          event.end();
+          if (event.shouldCommit()) {
+            event.className = element.getQualifiedName().toString();
+            event.members = countMembers(element);
+            event.commit();
+          }
+          this.stats.end(RunStats.Phase.CLASS, element);
+        }
+        if (node != null) {
+          output(output, node, element);
         }
       }
     }
@@ -137,23 +310,98 @@ public final class XMLDoclet implements Doclet {
     // Iterate over packages
     if (!options.hasFilter()) {
       for (PackageElement element : ElementFilter.packagesIn(this.env.getIncludedElements())) {
+        // Apply the patterns from options
+        this.stats.begin(RunStats.Phase.FILTER);
+        boolean included = this.options.filter(element);
+        this.stats.end(RunStats.Phase.FILTER);
+        if (!included) continue;
+        if (checkpoint != null && checkpoint.contains("package", element.getQualifiedName())) {
+          this.stats.add(RunStats.Counter.RESUMED, 1);
+          continue;
+        }
+        XMLNode node = null;
+        this.stats.begin(RunStats.Phase.PACKAGE);
         try {
-          nodes.add(toPackageNode(element));
+          node = toPackageNode(element);
+          this.stats.add(RunStats.Counter.PACKAGES, 1);
         } catch (Exception ex) {
           reporter.print(Diagnostic.Kind.ERROR, element, ex.getMessage());
+        } finally {
+          this.stats.end(RunStats.Phase.PACKAGE, element);
+        }
+        if (node != null) {
+          output(output, node, element);
         }
       }
     }
+  }
 
-    // Save the output XML
+  /**
+   * Passes the node to the output, reporting any error against its element.
+   */
+  private void output(Consumer<XMLNode> output, XMLNode node, Element element) {
     try {
-      save(nodes);
-    } catch (DocletException ex) {
-      reporter.print(Diagnostic.Kind.ERROR, ex.getElement(), ex.getMessage());
-      return false;
+      output.accept(node);
+    } catch (RuntimeException ex) {
+      reporter.print(Diagnostic.Kind.ERROR, element, ex.getMessage());
     }
+  }
 
-    return true;
+  /**
+   * Builds the usages of the documented classes in a single pass, if they were requested.
+   *
+   * @param types The documented classes
+   *
+   * @return the "usages" node or <code>null</code> if the option was not used.
+   */
+  private @Nullable XMLNode toUsagesNode(Set<TypeElement> types) {
+    if (!this.options.writeUsages()) return null;
+    this.stats.begin(RunStats.Phase.USAGES);
+    try {
+      Usages usages = new Usages(types::contains, this.options::isVisible, this.typeNames);
+      for (TypeElement type : types) {
+        usages.add(type);
+      }
+      return usages.toNode();
+    } finally {
+      this.stats.end(RunStats.Phase.USAGES);
+    }
+  }
+
+  /**
+   * Builds the class hierarchy of the documented classes, if it was requested.
+   *
+   * @param types The documented classes
+   *
+   * @return the hierarchy or <code>null</code> if the option was not used.
+   */
+  private @Nullable Hierarchy toHierarchy(Set<TypeElement> types) {
+    if (this.options.getHierarchyFormat() == null) return null;
+    this.stats.begin(RunStats.Phase.HIERARCHY);
+    try {
+      Hierarchy hierarchy = new Hierarchy();
+      for (TypeElement type : types) {
+        hierarchy.add(type);
+      }
+      return hierarchy;
+    } finally {
+      this.stats.end(RunStats.Phase.HIERARCHY);
+    }
+  }
+
+  /**
+   * Returns all the classes selected by the filters, including the ones skipped when resuming, or an
+   * empty set if neither the usages nor the hierarchy were requested.
+   */
+  private Set<TypeElement> documentedTypes() {
+    if (!this.options.writeUsages() && this.options.getHierarchyFormat() == null) return Collections.emptySet();
+    Set<TypeElement> types = new LinkedHashSet<>();
+    for (TypeElement element : ElementFilter.typesIn(this.env.getIncludedElements())) {
+      if (this.options.filter(element) && this.options.isVisible(element)) {
+        types.add(element);
+      }
+    }
+    return types;
   }
 
   @Override
@@ -176,74 +424,214 @@ public final class XMLDoclet implements Doclet {
   }
 
   /**
-   * Save the given array of nodes.
-   *
-   * <p>Will either save the files individually, or as a single file depending on whether the
-   * "-multiple" flag is used or not.
+   * Saves the class or package node in its own file and records it in the references and the
+   * checkpoint.
    *
-   * @param nodes The array of nodes to be saved.
+   * <p>Errors are reported so that the other files can still be saved.
    *
-   * @throws DocletException If an error occurs while saving the files.
+   * @param meta       The metadata node
+   * @param node       The class or package node
+   * @param references The references to the files written, for the index
+   * @param checkpoint The checkpoint of the files written, if any
    */
-  private void save(List<XMLNode> nodes) throws DocletException {
-    // Add admin node
-    XMLNode meta = new XMLNode("meta");
-    DateFormat df = new SimpleDateFormat(ISO_8601);
-    meta.attribute("created", df.format(new Date()));
-
-    // Multiple files
-    if (this.options.useMultipleFiles()) {
-      for (XMLNode node : nodes) {
-        File dir = this.options.getDirectory();
-        String name = node.getAttribute("name");
-        if (this.options.useSubFolders()) {
-          name = name.replace('.', '/');
-          int x = name.lastIndexOf('/');
-          if (x >= 0) {
-            dir = new File(dir, name.substring(0, x));
-            if (!dir.exists()) {
-              boolean created = dir.mkdirs();
-              if (!created) this.reporter.print(Diagnostic.Kind.WARNING, "Unable to create directory "+dir.getAbsolutePath());
-            }
-            name = name.substring(x + 1);
+  private void save(XMLNode meta, XMLNode node, List<XMLNode> references, @Nullable Checkpoint checkpoint) {
+    this.stats.begin(RunStats.Phase.SAVE);
+    try {
+      File dir = this.options.getDirectory();
+      String name = node.getAttribute("name");
+      if (this.options.useSubFolders()) {
+        name = name.replace('.', '/');
+        int x = name.lastIndexOf('/');
+        if (x >= 0) {
+          dir = new File(dir, name.substring(0, x));
+          if (!dir.exists()) {
+            boolean created = dir.mkdirs();
+            if (!created) this.reporter.print(Diagnostic.Kind.WARNING, "Unable to create directory "+dir.getAbsolutePath());
           }
+          name = name.substring(x + 1);
         }
-        XMLNode root = new XMLNode("root");
-        root.attribute("xmlns:xlink", "http://www.w3.org/1999/xlink");
-        root.child(meta);
-        root.child(node);
-        String fileName = name + ".xml";
-        root.save(dir, fileName, this.options.getEncoding(), "");
-      }
-      // Index
+      }
       XMLNode root = new XMLNode("root");
       root.attribute("xmlns:xlink", "http://www.w3.org/1999/xlink");
       root.child(meta);
-      for (XMLNode node : nodes) {
-        String name = node.getAttribute("name");
-        if (this.options.useSubFolders()) {
-          name = name.replace('.', '/');
-        }
-        XMLNode ref = new XMLNode(node.getName());
-        ref.attribute("xlink:type", "simple");
-        ref.attribute("xlink:href", name + ".xml");
-        root.child(ref);
+      root.child(node);
+      String fileName = name + ".xml";
+      write(root, dir, fileName);
+      references.add(IndexFile.toReference(node, this.options.useSubFolders()));
+      if (checkpoint != null) {
+        checkpoint.add(node);
       }
-      String fileName = "index.xml";
-      root.save(this.options.getDirectory(), fileName, this.options.getEncoding(), "");
+    } catch (DocletException ex) {
+      this.reporter.print(Diagnostic.Kind.ERROR, ex.getMessage());
+    } catch (IOException ex) {
+      this.reporter.print(Diagnostic.Kind.ERROR, "Unable to write checkpoint: " + ex.getMessage());
+    } finally {
+      this.stats.end(RunStats.Phase.SAVE);
+    }
+  }
+
+  /**
+   * Saves the index of the files when multiple files are used.
+   *
+   * @param meta       The metadata node
+   * @param references The references to the files written
+   *
+   * @throws DocletException If an error occurs while saving the index.
+   */
+  private void saveIndex(XMLNode meta, List<XMLNode> references) throws DocletException {
+    if (this.options.updateIndex()) {
+      references = IndexFile.merge(IndexFile.load(this.options.getDirectory()), references);
+    }
+    XMLNode root = IndexFile.toRoot(meta, references);
+    root.save(this.options.getDirectory(), IndexFile.NAME, this.options.getEncoding(), "", this.stats);
+  }
+
+  /**
+   * Saves the usages of the classes if they were requested.
+   *
+   * @param meta   The metadata node
+   * @param usages The usages node, if any
+   *
+   * @throws DocletException If an error occurs while saving the file.
+   */
+  private void saveUsages(XMLNode meta, @Nullable XMLNode usages) throws DocletException {
+    if (usages == null) return;
+    XMLNode root = new XMLNode("root");
+    root.child(meta);
+    root.child(usages);
+    root.save(this.options.getDirectory(), Usages.NAME, this.options.getEncoding(), "", this.stats);
+  }
+
+  /**
+   * Saves the class hierarchy if it was requested, as well as the text file with the "text" format.
+   *
+   * @param meta      The metadata node
+   * @param hierarchy The class hierarchy, if any
+   *
+   * @throws DocletException If an error occurs while saving the file.
+   */
+  private void saveHierarchy(XMLNode meta, @Nullable Hierarchy hierarchy) throws DocletException {
+    if (hierarchy == null) return;
+    XMLNode root = new XMLNode("root");
+    root.child(meta);
+    root.child(hierarchy.toNode());
+    root.save(this.options.getDirectory(), Hierarchy.XML_NAME, this.options.getEncoding(), "", this.stats);
+    if ("text".equals(this.options.getHierarchyFormat())) {
+      hierarchy.saveText(this.options.getDirectory(), this.options.getEncoding());
+    }
+  }
 
-      // Single file
+  /**
+   * Saves the nodes as a single file.
+   *
+   * @param meta  The metadata node
+   * @param nodes The class and package nodes to be saved.
+   *
+   * @throws DocletException If an error occurs while saving the file.
+   */
+  private void save(XMLNode meta, List<XMLNode> nodes) throws DocletException {
+    // Wrap the XML
+    XMLNode root = new XMLNode("root");
+    root.attribute("xmlns:xlink", "http://www.w3.org/1999/xlink");
+    root.child(meta);
+    for (XMLNode node : nodes) {
+      root.child(node);
+    }
+    write(root, this.options.getDirectory(), this.options.getFilename());
+  }
+
+  /**
+   * Saves the specified document, applying the XSLT stylesheet if one was specified.
+   *
+   * @param root The root node of the document
+   * @param dir  The directory to save the document to
+   * @param name The name of the file
+   *
+   * @throws DocletException If an error occurs while transforming or saving the file.
+   */
+  private void write(XMLNode root, File dir, String name) throws DocletException {
+    TransformerHandler handler;
+    try {
+      handler = this.options.newTransformerHandler();
+    } catch (TransformerConfigurationException ex) {
+      throw new DocletException(null, "Unable to create XSLT transformer: "+ex.getMessage(), ex);
+    }
+    if (handler != null) {
+      root.transform(dir, name, handler, this.reporter, this.stats);
     } else {
-      // Wrap the XML
-      XMLNode root = new XMLNode("root");
-      root.attribute("xmlns:xlink", "http://www.w3.org/1999/xlink");
-      root.child(meta);
-      for (XMLNode node : nodes) {
-        root.child(node);
+      root.save(dir, name, this.options.getEncoding(), "", this.stats);
+    }
+  }
+
+  /**
+   * Save the statistics and the timeline of this run if they were requested.
+   */
+  private void saveStats() {
+    try {
+      File file = this.options.getStatsFile();
+      if (file != null) {
+        this.stats.save(file);
+      }
+      File trace = this.options.getTraceFile();
+      if (trace != null) {
+        this.stats.saveTrace(trace);
       }
-      root.save(this.options.getDirectory(), this.options.getFilename(), this.options.getEncoding(), "");
+    } catch (DocletException ex) {
+      this.reporter.print(Diagnostic.Kind.WARNING, ex.getMessage());
+    }
+  }
+
+  /**
+   * Returns the cache of rendered classes if one was requested and the taglets allow it.
+   */
+  private @Nullable RenderCache newRenderCache() {
+    File dir = this.options.getCacheDirectory();
+    if (dir == null) return null;
+    String fingerprint = this.options.getRenderFingerprint();
+    if (fingerprint == null) {
+      this.reporter.print(Diagnostic.Kind.WARNING, "Render cache disabled: custom taglets must implement ThreadSafeTaglet and be loaded from a jar or directory");
+      return null;
     }
+    return new RenderCache(dir, this.options.getCacheSize(), fingerprint, this.env.getElementUtils());
+  }
 
+  /**
+   * Reports the use of the render cache and evicts old entries if needed.
+   */
+  private void closeRenderCache() {
+    RenderCache cache = this.cache;
+    if (cache == null) return;
+    try {
+      int evicted = cache.evict();
+      this.reporter.print(Diagnostic.Kind.NOTE, "Render cache: " + cache.hits() + " hits, "
+          + cache.misses() + " misses, " + evicted + " evicted");
+    } catch (IOException ex) {
+      this.reporter.print(Diagnostic.Kind.WARNING, "Unable to evict render cache entries: " + ex.getMessage());
+    }
+  }
+
+  /**
+   * Returns the class node from the render cache or renders it and stores it in the cache.
+   *
+   * @param typeElement The class to transform.
+   */
+  private XMLNode toCachedClassNode(TypeElement typeElement) {
+    RenderCache cache = this.cache;
+    if (cache == null) return toClassNode(typeElement);
+    String key = cache.key(typeElement);
+    XMLNode node = cache.get(key, typeElement);
+    if (node != null) {
+      this.stats.add(RunStats.Counter.CACHE_HITS, 1);
+      return node;
+    }
+    this.stats.add(RunStats.Counter.CACHE_MISSES, 1);
+    node = toClassNode(typeElement);
+    try {
+      return cache.put(key, node);
+    } catch (IOException ex) {
+      this.reporter.print(Diagnostic.Kind.WARNING, typeElement, "Unable to cache class: " + ex.getMessage());
+      return node;
+    }
   }
 
   /**
@@ -258,14 +646,25 @@ public final class XMLDoclet implements Doclet {
     node.attribute("name", packageElement.getQualifiedName().toString());
     node.attribute("unnamed", packageElement.isUnnamed());
 
-    // Comment
-    node.child(toComment(packageElement));
+    // Comment, undocumented elements skip all the calls related to comments
+    DocCommentTree docComment = getDocComment(packageElement);
+    if (docComment != null && this.options.generates(Part.COMMENTS)) {
+      node.child(toComment(packageElement, docComment));
+    }
 
     // Child nodes
-    node.child(toAnnotationsNode(packageElement.getAnnotationMirrors()));
-    node.child(toStandardTags(packageElement));
-    node.child(toTags(packageElement));
-    node.child(toSeeNodes(packageElement));
+    if (this.options.generates(Part.ANNOTATIONS)) {
+      node.child(toAnnotationsNode(packageElement.getAnnotationMirrors()));
+    }
+    if (docComment != null) {
+      if (this.options.generates(Part.TAGS)) {
+        node.child(toStandardTags(packageElement, docComment));
+        node.child(toTags(packageElement, docComment));
+      }
+      if (this.options.generates(Part.SEE)) {
+        node.child(toSeeNodes(docComment));
+      }
+    }
 
     return node;
   }
@@ -286,16 +685,13 @@ public final class XMLDoclet implements Doclet {
     node.attribute("fulltype", typeElement.getQualifiedName().toString());
     node.attribute("name", typeElement.getQualifiedName().toString());
     node.attribute("package", elements.getPackageOf(typeElement).toString());
-    node.attribute("visibility", getVisibility(typeElement));
+    Modifiers.toAttributes(typeElement, node);
     node.attribute("kind", typeElement.getKind().toString().toLowerCase());
     if (typeElement.getNestingKind().isNested()) {
       node.attribute("nesting-kind", typeElement.getNestingKind().toString().toLowerCase());
     }
 
     // Class properties
-    for (Modifier modifier : toBooleanModifiers(typeElement)) {
-      node.attribute(modifier.name().toLowerCase(), "true");
-    }
     if (isSerializable(typeElement)) {
       node.attribute("serializable", "true");
     }
@@ -305,9 +701,10 @@ public final class XMLDoclet implements Doclet {
     if (!interfaces.isEmpty()) {
       XMLNode implement = new XMLNode("implements");
       for (TypeMirror type : interfaces) {
+        TypeNames.TypeName name = this.typeNames.get(type);
         XMLNode interfce = new XMLNode("interface");
-        interfce.attribute("type", toSimpleType(type));
-        interfce.attribute("fulltype", type.toString());
+        interfce.attribute("type", name.simple);
+        interfce.attribute("fulltype", name.full);
         implement.child(interfce);
       }
       node.child(implement);
@@ -315,30 +712,43 @@ public final class XMLDoclet implements Doclet {
 
     // Superclass
     if (typeElement.getSuperclass() != null) {
-      TypeMirror superclass = typeElement.getSuperclass();
+      String superclass = this.typeNames.get(typeElement.getSuperclass()).full;
       if (typeElement.getKind() == ElementKind.CLASS) {
-        if (!"java.lang.Object".equals(superclass.toString())) {
-          node.attribute("superclass", superclass.toString());
+        if (!"java.lang.Object".equals(superclass)) {
+          node.attribute("superclass", superclass);
         }
       } else if (typeElement.getKind() == ElementKind.ENUM) {
         String defaultEnumSuperclass = "java.lang.Enum<" + typeElement.getQualifiedName() + ">";
-        if (!defaultEnumSuperclass.equals(superclass.toString())) {
-          node.attribute("superclass", superclass.toString());
+        if (!defaultEnumSuperclass.equals(superclass)) {
+          node.attribute("superclass", superclass);
         }
       }
     }
 
-    // Comment
-    node.child(toComment(typeElement));
+    // Comment, undocumented elements skip all the calls related to comments
+    DocCommentTree docComment = getDocComment(typeElement);
+    if (docComment != null && this.options.generates(Part.COMMENTS)) {
+      node.child(toComment(typeElement, docComment));
+    }
 
     // Other child nodes
-    node.child(toAnnotationsNode(typeElement.getAnnotationMirrors()));
-    node.child(toStandardTags(typeElement));
-    node.child(toTags(typeElement));
-    node.child(toSeeNodes(typeElement));
-    node.child(toFieldsNode(typeElement));
-    node.child(toConstructorsNode(typeElement));
-    node.child(toMethods(typeElement));
+    if (this.options.generates(Part.ANNOTATIONS)) {
+      node.child(toAnnotationsNode(typeElement.getAnnotationMirrors()));
+    }
+    if (docComment != null) {
+      if (this.options.generates(Part.TAGS)) {
+        node.child(toStandardTags(typeElement, docComment));
+        node.child(toTags(typeElement, docComment));
+      }
+      if (this.options.generates(Part.SEE)) {
+        node.child(toSeeNodes(docComment));
+      }
+    }
+    if (this.options.generates(Part.SIGNATURES)) {
+      node.child(toFieldsNode(typeElement));
+      node.child(toConstructorsNode(typeElement));
+      node.child(toMethods(typeElement));
+    }
 
     return node;
   }
@@ -354,32 +764,41 @@ public final class XMLDoclet implements Doclet {
     // Create the <field> node and populate it.
     XMLNode node = new XMLNode("field");
     node.attribute("name", field.getSimpleName().toString());
-    node.attribute("type", toSimpleType(field.asType()));
-    node.attribute("fulltype", field.asType().toString());
+    TypeNames.TypeName type = this.typeNames.get(field.asType());
+    node.attribute("type", type.simple);
+    node.attribute("fulltype", type.full);
 
     if (field.getConstantValue() != null && !field.getConstantValue().toString().isEmpty()) {
       node.attribute("const", field.getConstantValue().toString());
     }
 
-    for (Modifier modifier : toBooleanModifiers(field)) {
-      node.attribute(modifier.name().toLowerCase(), "true");
-    }
-    node.attribute("visibility", getVisibility(field));
+    Modifiers.toAttributes(field, node);
+
+    // Undocumented fields skip all the calls related to comments
+    DocCommentTree docComment = getDocComment(field);
+    if (docComment == null) return node;
 
     // Comment
-    node.child(toComment(field));
+    if (this.options.generates(Part.COMMENTS)) {
+      node.child(toComment(field, docComment));
+    }
 
     // Other child nodes
-    node.child(toStandardTags(field));
-    node.child(toTags(field));
-    node.child(toSeeNodes(field));
+    if (this.options.generates(Part.TAGS)) {
+      node.child(toStandardTags(field, docComment));
+      node.child(toTags(field, docComment));
+    }
+    if (this.options.generates(Part.SEE)) {
+      node.child(toSeeNodes(docComment));
+    }
 
     return node;
   }
 
   private @Nullable XMLNode toConstructorsNode(TypeElement element) {
-    List<ExecutableElement> constructors = ElementFilter.constructorsIn(element.getEnclosedElements());
+    List<ExecutableElement> constructors = visibleMembers(ElementFilter.constructorsIn(element.getEnclosedElements()));
     if (constructors.isEmpty()) return null;
+    this.stats.add(RunStats.Counter.MEMBERS, constructors.size());
 
     // Create the <constructors> node
     XMLNode node = new XMLNode("constructors");
@@ -387,7 +806,7 @@ public final class XMLDoclet implements Doclet {
     // Add the <constructor> nodes
     for (ExecutableElement constructor : constructors) {
       XMLNode c = new XMLNode("constructor");
-      processExecutableElement(constructor, c);
+      processExecutableElement(constructor, c, getDocComment(constructor));
       node.child(c);
     }
 
@@ -398,8 +817,9 @@ public final class XMLDoclet implements Doclet {
    * Transforms an array of methods and an array of constructor methods into XML and adds those to the host node.
    */
   private @Nullable XMLNode toMethods(TypeElement element) {
-    List<ExecutableElement> methods = ElementFilter.methodsIn(element.getEnclosedElements());
+    List<ExecutableElement> methods = visibleMembers(ElementFilter.methodsIn(element.getEnclosedElements()));
     if (methods.isEmpty()) return null;
+    this.stats.add(RunStats.Counter.MEMBERS, methods.size());
 
     // Create the <methods> node
     XMLNode node = new XMLNode("methods");
@@ -407,22 +827,19 @@ public final class XMLDoclet implements Doclet {
     // Add the <method> nodes
     for (ExecutableElement method : methods) {
       XMLNode methodNode = new XMLNode("method");
+      DocCommentTree docComment = getDocComment(method);
 
-      processExecutableElement(method, methodNode);
+      processExecutableElement(method, methodNode, docComment);
 
-      TypeMirror returnType = method.getReturnType();
-      methodNode.attribute("type", toSimpleType(returnType));
-      methodNode.attribute("fulltype", returnType.toString());
-
-      for (Modifier modifier : toBooleanModifiers(method)) {
-        methodNode.attribute(modifier.name().toLowerCase(), "true");
-      }
+      TypeNames.TypeName returnType = this.typeNames.get(method.getReturnType());
+      methodNode.attribute("type", returnType.simple);
+      methodNode.attribute("fulltype", returnType.full);
 
       // Return tag
-      ReturnTree returnTree = findReturnTree(method);
+      ReturnTree returnTree = docComment != null && this.options.generates(Part.COMMENTS) ? findReturnTree(docComment) : null;
       if (returnTree != null) {
         XMLNode comment = new XMLNode("return", element, -1); // TODO doc.position().line()
-        String markup = Markup.toString(returnTree.getDescription(), element, this.options, this.reporter, false);
+        String markup = toMarkup(returnTree.getDescription(), element, false);
         comment.markup(markup);
         methodNode.child(comment);
       }
@@ -441,8 +858,9 @@ public final class XMLDoclet implements Doclet {
    * @return the fields or <code>null</code> if none.
    */
   private @Nullable XMLNode toFieldsNode(TypeElement element) {
-    List<VariableElement> fields = ElementFilter.fieldsIn(element.getEnclosedElements());
+    List<VariableElement> fields = visibleMembers(ElementFilter.fieldsIn(element.getEnclosedElements()));
     if (fields.isEmpty()) return null;
+    this.stats.add(RunStats.Counter.MEMBERS, fields.size());
     // Iterate over the fields
     XMLNode node = new XMLNode("fields");
     for (VariableElement field : fields) {
@@ -451,51 +869,81 @@ public final class XMLDoclet implements Doclet {
     return node;
   }
 
+  /**
+   * Returns the members which are visible enough to be documented.
+   *
+   * @param members The fields, constructors or methods of a class
+   *
+   * @return the visible members, or the same list if all members are documented.
+   */
+  private <T extends Element> List<T> visibleMembers(List<T> members) {
+    if (!this.options.hasVisibilityFilter()) return members;
+    List<T> visible = new ArrayList<>(members.size());
+    for (T member : members) {
+      if (this.options.isVisible(member)) {
+        visible.add(member);
+      }
+    }
+    this.stats.add(RunStats.Counter.PRUNED_MEMBERS, members.size() - visible.size());
+    return visible;
+  }
+
   /**
    * Set the commons attribute and child nodes for method and constructor nodes.
    *
-   * @param member The executable member documentation.
-   * @param node   The node to update
+   * @param member     The executable member documentation.
+   * @param node       The node to update
+   * @param docComment The doc comment of the member, if any
    */
-  private void processExecutableElement(ExecutableElement member, XMLNode node) {
+  private void processExecutableElement(ExecutableElement member, XMLNode node, @Nullable DocCommentTree docComment) {
     // Add the basic attribute values
     node.attribute("name", member.getSimpleName().toString());
-    node.attribute("visibility", getVisibility(member));
-    for (Modifier modifier : toBooleanModifiers(member)) {
-      node.attribute(modifier.name().toLowerCase(), "true");
-    }
+    Modifiers.toAttributes(member, node);
 
-    // Comment
-    node.child(toComment(member));
+    // Comment, undocumented members skip all the calls related to comments
+    if (docComment != null) {
+      if (this.options.generates(Part.COMMENTS)) {
+        node.child(toComment(member, docComment));
+      }
+      if (this.options.generates(Part.TAGS)) {
+        node.child(toTags(member, docComment));
+      }
+      if (this.options.generates(Part.SEE)) {
+        node.child(toSeeNodes(docComment));
+      }
+    }
 
     // Other objects attached to the method/constructor.
-    node.child(toTags(member));
-    node.child(toSeeNodes(member));
-    node.child(toParametersNode(member));
-    node.child(toExceptionsNode(member));
+    if (this.options.generates(Part.PARAMETERS)) {
+      node.child(toParametersNode(member, docComment));
+    }
+    if (this.options.generates(Part.EXCEPTIONS)) {
+      node.child(toExceptionsNode(member, docComment));
+    }
   }
 
   /**
    * Transforms common tags on the Doc object into XML.
    *
-   * @param element The element to document.
+   * @param element     The element to document.
+   * @param commentTree The doc comment of the element
    *
    * @return The corresponding list of nodes.
    */
-  private List<XMLNode> toStandardTags(Element element) {
+  private List<XMLNode> toStandardTags(Element element, DocCommentTree commentTree) {
+    List<? extends DocTree> blockTags = commentTree.getBlockTags();
+    if (blockTags.isEmpty()) return List.of();
+
     // Create the comment node
     List<XMLNode> nodes = new ArrayList<>();
-    DocCommentTree commentTree = this.env.getDocTrees().getDocCommentTree(element);
 
     // Handle the tags
-    if (commentTree != null) {
-      checkSingletonTags(element, commentTree);
-      for (DocTree tag : commentTree.getBlockTags()) {
-        BlockTagTree block = (BlockTagTree) tag;
-        Taglet taglet = this.options.getTagletForName(block.getTagName());
-        if (taglet instanceof BlockTag) {
-          nodes.add(((BlockTag) taglet).toXMLNode(tag));
-        }
+    checkSingletonTags(element, commentTree);
+    for (DocTree tag : blockTags) {
+      BlockTagTree block = (BlockTagTree) tag;
+      Taglet taglet = this.options.getTagletForName(block.getTagName());
+      if (taglet instanceof BlockTag) {
+        nodes.add(((BlockTag) taglet).toXMLNode(tag));
       }
     }
 
@@ -516,10 +964,9 @@ public final class XMLDoclet implements Doclet {
   /**
    * Transforms comments on the Doc object into XML.
    */
-  private @Nullable XMLNode toTags(Element element) {
-    DocCommentTree comment = this.env.getDocTrees().getDocCommentTree(element);
-    if (comment == null) return null;
+  private @Nullable XMLNode toTags(Element element, DocCommentTree comment) {
     List<? extends DocTree> blockTags = comment.getBlockTags();
+    if (blockTags.isEmpty()) return null;
 
     // Create the comment node
     XMLNode node = new XMLNode("tags");
@@ -534,7 +981,7 @@ public final class XMLDoclet implements Doclet {
         if (taglet != null) {
           XMLNode tNode = new XMLNode("tag");
           tNode.attribute("name", block.getTagName());
-          String contents = taglet.toString(List.of(block), element);
+          String contents = this.options.getTagletInvoker().invoke(taglet, List.of(block), element);
           tNode.markup(contents);
           node.child(tNode);
           hasTags = true;
@@ -553,14 +1000,15 @@ public final class XMLDoclet implements Doclet {
    *
    * @return the XML for the specified parameters using the param tags for additional description.
    */
-  private @Nullable XMLNode toParametersNode(ExecutableElement member) {
+  private @Nullable XMLNode toParametersNode(ExecutableElement member, @Nullable DocCommentTree docComment) {
     List<? extends VariableElement> parameters = member.getParameters();
     if (parameters.isEmpty()) return null;
 
     // Iterate over the parameters
+    boolean comments = docComment != null && this.options.generates(Part.COMMENTS);
     XMLNode node = new XMLNode("parameters");
     for (VariableElement parameter : parameters) {
-      ParamTree comment = findParamTree(member, parameter.getSimpleName().toString());
+      ParamTree comment = comments ? findParamTree(docComment, parameter.getSimpleName().toString()) : null;
       XMLNode p = toParameterNode(member, parameter, comment);
       node.child(p);
     }
@@ -573,14 +1021,15 @@ public final class XMLDoclet implements Doclet {
    *
    * @return the XML for the specified parameters using the param tags for additional description.
    */
-  private @Nullable XMLNode toExceptionsNode(ExecutableElement member) {
+  private @Nullable XMLNode toExceptionsNode(ExecutableElement member, @Nullable DocCommentTree docComment) {
     List<? extends TypeMirror> thrownTypes = member.getThrownTypes();
     if (thrownTypes.isEmpty()) return null;
 
     // Iterate over the exceptions
+    boolean comments = docComment != null && this.options.generates(Part.COMMENTS);
     XMLNode node = new XMLNode("exceptions");
     for (TypeMirror exception : thrownTypes) {
-      ThrowsTree throwsTree = findThrowsTree(member, exception.toString());
+      ThrowsTree throwsTree = comments ? findThrowsTree(docComment, this.typeNames.get(exception).full) : null;
       XMLNode n = toExceptionNode(member, exception, throwsTree);
       node.child(n);
     }
@@ -591,9 +1040,7 @@ public final class XMLDoclet implements Doclet {
   /**
    * Transforms comments on the Doc object into XML.
    */
-  private List<XMLNode> toSeeNodes(Element element) {
-    DocCommentTree tree = this.env.getDocTrees().getDocCommentTree(element);
-    if (tree == null) return List.of();
+  private List<XMLNode> toSeeNodes(DocCommentTree tree) {
     List<? extends DocTree> blockTags = tree.getBlockTags();
     if (blockTags.isEmpty()) return List.of();
     List<XMLNode> nodes = new ArrayList<>();
@@ -613,8 +1060,17 @@ public final class XMLDoclet implements Doclet {
   private @Nullable XMLNode toAnnotationsNode(List<? extends AnnotationMirror> annotations) {
     if (annotations.isEmpty()) return null;
     XMLNode node = new XMLNode("annotations");
+    AnnotationCache cache = this.annotations;
     for (AnnotationMirror annotation : annotations) {
-      node.child(toAnnotationNode(annotation));
+      if (cache != null) {
+        int size = cache.size();
+        node.child(cache.get(annotation, this::toAnnotationNode));
+        if (cache.size() == size) {
+          this.stats.add(RunStats.Counter.SHARED_ANNOTATIONS, 1);
+        }
+      } else {
+        node.child(toAnnotationNode(annotation));
+      }
     }
     return node;
   }
@@ -673,10 +1129,11 @@ public final class XMLDoclet implements Doclet {
     if (parameter == null) return null;
     XMLNode node = new XMLNode("parameter");
     node.attribute("name", parameter.getSimpleName().toString());
-    node.attribute("type", toSimpleType(parameter.asType()));
-    node.attribute("fulltype", parameter.asType().toString());
+    TypeNames.TypeName type = this.typeNames.get(parameter.asType());
+    node.attribute("type", type.simple);
+    node.attribute("fulltype", type.full);
     if (comment != null) {
-      String markup = Markup.toString(comment.getDescription(), member, this.options, this.reporter, false);
+      String markup = toMarkup(comment.getDescription(), member, false);
       node.markup(markup);
     }
     return node;
@@ -690,34 +1147,51 @@ public final class XMLDoclet implements Doclet {
   private @Nullable XMLNode toExceptionNode(ExecutableElement member, @Nullable TypeMirror exception, @Nullable ThrowsTree throwsTree) {
     if (exception == null) return null;
     XMLNode node = new XMLNode("exception");
-    node.attribute("type", toSimpleType(exception));
-    node.attribute("fulltype", exception.toString());
+    TypeNames.TypeName type = this.typeNames.get(exception);
+    node.attribute("type", type.simple);
+    node.attribute("fulltype", type.full);
     if (throwsTree != null) {
       node.attribute("comment", throwsTree.getDescription().toString());
-      String markup = Markup.toString(throwsTree.getDescription(), member, this.options, this.reporter, false);
+      String markup = toMarkup(throwsTree.getDescription(), member, false);
       node.markup(markup);
     }
     return node;
   }
 
   /**
-   * Transforms comments on the Doc object into XML.
+   * Returns the doc comment of the specified element.
+   *
+   * <p>The comment is looked up once per element and passed to the methods which need it, elements
+   * without a comment take a path which does not look at comments at all.
    *
    * @param element The element
+   *
+   * @return the doc comment or <code>null</code> if the element has none or if no part of the
+   *         documentation generated depends on it.
    */
-  private @Nullable XMLNode toComment(Element element) {
-    DocCommentTree commentTree = this.env.getDocTrees().getDocCommentTree(element);
-    if (commentTree == null || commentTree.toString().isEmpty()) return null;
+  private @Nullable DocCommentTree getDocComment(Element element) {
+    if (!this.options.generates(Part.COMMENTS) && !this.options.generates(Part.TAGS)
+        && !this.options.generates(Part.SEE)) return null;
+    return this.env.getDocTrees().getDocCommentTree(element);
+  }
+
+  /**
+   * Transforms comments on the Doc object into XML.
+   *
+   * @param element     The element
+   * @param commentTree The doc comment of the element
+   */
+  private @Nullable XMLNode toComment(Element element, DocCommentTree commentTree) {
+    if (commentTree.getFullBody().isEmpty() && commentTree.getBlockTags().isEmpty()) return null;
     XMLNode node = new XMLNode("comment", element, -1); // TODO doc.position().line()
-    String markup = Markup.toString(commentTree.getFullBody(), element, this.options, this.reporter, true);
+    String markup = toMarkup(commentTree.getFullBody(), element, true);
     return node.markup(markup);
   }
 
   /**
    * @return an "annotation" XML node for the annotation.
    */
-  private @Nullable XMLNode toAnnotationNode(@Nullable AnnotationMirror annotation) {
-    if (annotation == null) return null;
+  private XMLNode toAnnotationNode(AnnotationMirror annotation) {
     XMLNode node = new XMLNode("annotation");
     node.attribute("name", annotation.getAnnotationType().asElement().getSimpleName().toString());
     Map<? extends ExecutableElement, ? extends AnnotationValue> values = annotation.getElementValues();
@@ -747,18 +1221,7 @@ public final class XMLDoclet implements Doclet {
     if (value == null) return null;
     XMLNode node = null;
     Object o = value.getValue();
-    Class<?> c = o.getClass();
-    if (c.isArray()) { // JDK8
-      node = new XMLNode("array");
-      Object[] a = (Object[]) o;
-      for (Object i : a) {
-        if (i instanceof AnnotationValue) {
-          node.child(toAnnotationValueNode((AnnotationValue) i));
-        } else {
-          this.reporter.print(Diagnostic.Kind.WARNING, "Unexpected annotation value type" + i);
-        }
-      }
-    } else if (o instanceof List) { // JDK11
+    if (o instanceof List) {
       node = new XMLNode("array");
       List<?> list = (List<?>)o;
       for (Object i : list) {
@@ -780,16 +1243,44 @@ public final class XMLDoclet implements Doclet {
   // Utilities ====================================================================================
 
   /**
-   * Sets the visibility for the class, method, or field.
+   * Renders the specified documentation trees as markup.
    *
-   * @param element The member for which the visibility needs to be set (class, method, or field).
+   * @param trees     The documentation trees
+   * @param element   The element being documented
+   * @param hasBlocks Whether the markup should be wrapped in block elements
+   *
+   * @return The corresponding markup
    */
-  private static String getVisibility(Element element) {
-    Set<Modifier> modifiers = element.getModifiers();
-    if (modifiers.contains(Modifier.PRIVATE)) return "private";
-    if (modifiers.contains(Modifier.PROTECTED)) return "protected";
-    if (modifiers.contains(Modifier.PUBLIC)) return "public";
-    return "package-private";
+  private String toMarkup(List<? extends DocTree> trees, Element element, boolean hasBlocks) {
+    this.stats.begin(RunStats.Phase.MARKUP);
+    MarkupEvent event = new MarkupEvent();
+    event.begin();
+    try {
+      String markup = Markup.toString(trees, element, this.options, this.reporter, hasBlocks);
+      event.end();
+      if (event.shouldCommit()) {
+        event.element = element.toString();
+        event.length = markup.length();
+        event.commit();
+      }
+      return markup;
+    } finally {
+      this.stats.end(RunStats.Phase.MARKUP);
+    }
+  }
+
+  /**
+   * @return the number of fields, constructors and methods in the specified type.
+   */
+  private static int countMembers(TypeElement element) {
+    int count = 0;
+    for (Element member : element.getEnclosedElements()) {
+      ElementKind kind = member.getKind();
+      if (kind.isField() || kind == ElementKind.CONSTRUCTOR || kind == ElementKind.METHOD) {
+        count++;
+      }
+    }
+    return count;
   }
 
   private static boolean isSerializable(TypeElement element) {
@@ -803,9 +1294,7 @@ public final class XMLDoclet implements Doclet {
   /**
    * Find the corresponding throws tag
    */
-  private @Nullable ThrowsTree findThrowsTree(ExecutableElement member, String name) {
-    DocCommentTree comment = this.env.getDocTrees().getDocCommentTree(member);
-    if (comment == null) return null;
+  private static @Nullable ThrowsTree findThrowsTree(DocCommentTree comment, String name) {
     for (DocTree tree : comment.getBlockTags()) {
       if (tree.getKind() == DocTree.Kind.THROWS) {
         ThrowsTree throwsTree = (ThrowsTree) tree;
@@ -818,9 +1307,7 @@ public final class XMLDoclet implements Doclet {
   /**
    * Find the corresponding parameter tag.
    */
-  private @Nullable ParamTree findParamTree(ExecutableElement member, String name) {
-    DocCommentTree comment = this.env.getDocTrees().getDocCommentTree(member);
-    if (comment == null) return null;
+  private static @Nullable ParamTree findParamTree(DocCommentTree comment, String name) {
     for (DocTree tree : comment.getBlockTags()) {
       if (tree.getKind() == DocTree.Kind.PARAM) {
         ParamTree paramTree = (ParamTree) tree;
@@ -833,9 +1320,7 @@ public final class XMLDoclet implements Doclet {
   /**
    * Find the corresponding return tag.
    */
-  private @Nullable ReturnTree findReturnTree(ExecutableElement member) {
-    DocCommentTree comment = this.env.getDocTrees().getDocCommentTree(member);
-    if (comment == null) return null;
+  private static @Nullable ReturnTree findReturnTree(DocCommentTree comment) {
     for (DocTree tree : comment.getBlockTags()) {
       if (tree.getKind() == DocTree.Kind.RETURN) {
         return (ReturnTree) tree;
@@ -861,17 +1346,4 @@ public final class XMLDoclet implements Doclet {
     if (o instanceof Element) return ((Element)o).getEnclosingElement().toString();
     return o.getClass().getName();
   }
-
-  private String toSimpleType(TypeMirror type) {
-    if (type instanceof DeclaredType) {
-      return ((DeclaredType) type).asElement().getSimpleName().toString();
-    }
-    return type.toString();
-  }
-
-  private Set<Modifier> toBooleanModifiers(Element element) {
-    return element.getModifiers().stream()
-        .filter(BOOLEAN_MODIFIERS::contains)
-        .collect(Collectors.toUnmodifiableSet());
-  }
 }
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import com.sun.source.util.DocTreePath;
+import jdk.javadoc.doclet.Doclet;
+import jdk.javadoc.doclet.Reporter;
+
+import javax.lang.model.element.Element;
+import javax.tools.Diagnostic;
+import javax.tools.DocumentationTool;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A long-running process which runs the XML doclet for each request it receives on standard input.
+ *
+ * <p>Each line is a request made of the same arguments as the <code>javadoc</code> command, for example:
+ * <pre>
+ * -sourcepath src/main/java -multiple -d build/xmldoc org.example
+ * </pre>
+ *
+ * <p>Arguments are separated by spaces and may be quoted with single or double quotes; an argument
+ * starting with <code>@</code> is replaced by the arguments in the corresponding file. The options
+ * are checked against the options of the tool and of the XML doclet, so that their values are never
+ * mistaken for source files. Unknown options are rejected, and so are the <code>-doclet</code> and
+ * <code>-docletpath</code> options since the XML doclet is always used: taglets must be on the class
+ * path of the daemon.
+ *
+ * <p>For each request, the daemon prints the output of the tool followed by a status line
+ * <code>#OK &lt;milliseconds&gt;</code> or <code>#FAILED &lt;milliseconds&gt;</code>. The daemon stops
+ * at the end of the input or when it receives <code>#quit</code>.
+ *
+ * <p>Since the JVM, the compiler classes and the taglets stay loaded and the file manager is reused
+ * between runs, only the first request pays for the startup and warm-up costs.
+ *
+ * <p>Requests are processed one at a time.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+public final class XMLDocletDaemon {
+
+  /**
+   * Options of the javadoc launcher which do not apply since the XML doclet is always used.
+   */
+  private static final Set<String> UNSUPPORTED_OPTIONS = Set.of("-doclet", "-docletpath", "--doclet-path");
+
+  private final DocumentationTool tool;
+
+  private final StandardJavaFileManager fileManager;
+
+  /**
+   * The number of arguments of each option of the XML doclet by name.
+   */
+  private final Map<String, Integer> docletOptions = new HashMap<>();
+
+  /**
+   * @param encoding The default encoding of the source files.
+   */
+  public XMLDocletDaemon(Charset encoding) {
+    this.tool = ToolProvider.getSystemDocumentationTool();
+    this.fileManager = this.tool.getStandardFileManager(null, null, encoding);
+    for (Doclet.Option option : new Options(new SilentReporter()).asSet()) {
+      for (String name : option.getNames()) {
+        this.docletOptions.put(name, option.getArgumentCount());
+      }
+    }
+  }
+
+  /**
+   * Processes the requests from the specified input until the end of the input or <code>#quit</code>.
+   *
+   * <p>A request which fails with an exception is reported to the client as an error and the next
+   * request is processed.
+   *
+   * @param in  The requests
+   * @param out Where the output of each request is written
+   *
+   * @throws IOException If thrown while reading or writing.
+   */
+  public void serve(BufferedReader in, PrintWriter out) throws IOException {
+    String line;
+    while ((line = in.readLine()) != null) {
+      line = line.trim();
+      if (line.isEmpty()) continue;
+      if ("#quit".equals(line)) break;
+      long start = System.nanoTime();
+      boolean success;
+      try {
+        success = run(parse(line), out);
+      } catch (IOException | IllegalArgumentException ex) {
+        out.println("error: " + ex.getMessage());
+        success = false;
+      } catch (RuntimeException ex) {
+        out.println("error: " + ex);
+        success = false;
+      }
+      long time = (System.nanoTime() - start) / 1_000_000;
+      out.println((success ? "#OK " : "#FAILED ") + time);
+      out.flush();
+    }
+  }
+
+  /**
+   * Runs the doclet with the specified javadoc arguments.
+   *
+   * @param arguments The arguments, including the names of the packages and source files to document
+   * @param out       Where the output of the tool is written
+   *
+   * @return <code>true</code> if the doclet completed successfully; <code>false</code> otherwise.
+   *
+   * @throws IOException If the locations of the file manager could not be reset.
+   * @throws IllegalArgumentException If an option is unknown, unsupported or missing its arguments.
+   */
+  public boolean run(List<String> arguments, Writer out) throws IOException {
+    List<String> options = new ArrayList<>();
+    List<File> files = new ArrayList<>();
+    for (int i = 0; i < arguments.size(); i++) {
+      String argument = arguments.get(i);
+      if (argument.startsWith("-")) {
+        if (UNSUPPORTED_OPTIONS.contains(argument))
+          throw new IllegalArgumentException("Unsupported option: " + argument + " (the XML doclet is always used)");
+        int count = getArgumentCount(argument);
+        if (count < 0) throw new IllegalArgumentException("Unknown option: " + argument);
+        if (i + count >= arguments.size()) throw new IllegalArgumentException("Missing argument for option: " + argument);
+        options.addAll(arguments.subList(i, i + count + 1));
+        i += count;
+      } else if (argument.endsWith(".java")) {
+        files.add(new File(argument));
+      } else {
+        options.add(argument);
+      }
+    }
+    // Locations set by the previous request must not leak into this one
+    this.fileManager.setLocation(StandardLocation.SOURCE_PATH, null);
+    this.fileManager.setLocation(StandardLocation.CLASS_PATH, null);
+    Iterable<? extends JavaFileObject> units = files.isEmpty()
+        ? Collections.emptyList()
+        : this.fileManager.getJavaFileObjectsFromFiles(files);
+    DocumentationTool.DocumentationTask task = this.tool.getTask(out, this.fileManager, null, XMLDoclet.class, options, units);
+    return task.call();
+  }
+
+  /**
+   * Returns the number of arguments following the specified option of the tool or of the doclet.
+   *
+   * @return the number of arguments or -1 if the option is unknown.
+   */
+  private int getArgumentCount(String option) {
+    // Options such as --release=11 include their value
+    int equals = option.indexOf('=');
+    if (option.startsWith("--") && equals > 0) {
+      return this.tool.isSupportedOption(option.substring(0, equals)) >= 0 ? 0 : -1;
+    }
+    Integer count = this.docletOptions.get(option);
+    return count != null ? count : this.tool.isSupportedOption(option);
+  }
+
+  /**
+   * Splits the request into arguments, expanding argument files.
+   *
+   * @param line The request
+   *
+   * @return The list of arguments.
+   *
+   * @throws IOException If an argument file could not be read.
+   */
+  static List<String> parse(String line) throws IOException {
+    return expand(tokenize(line));
+  }
+
+  /**
+   * Replaces the argument files in the specified arguments by their content.
+   *
+   * @param tokens The arguments which may include argument files starting with <code>@</code>
+   *
+   * @return The list of arguments.
+   *
+   * @throws IOException If an argument file could not be read.
+   */
+  static List<String> expand(List<String> tokens) throws IOException {
+    List<String> arguments = new ArrayList<>();
+    for (String token : tokens) {
+      if (token.startsWith("@") && token.length() > 1) {
+        for (String fileLine : Files.readAllLines(Paths.get(token.substring(1)))) {
+          arguments.addAll(tokenize(fileLine));
+        }
+      } else {
+        arguments.add(token);
+      }
+    }
+    return arguments;
+  }
+
+  /**
+   * Splits the specified text on whitespace, honouring single and double quotes.
+   */
+  private static List<String> tokenize(String text) {
+    List<String> tokens = new ArrayList<>();
+    StringBuilder token = new StringBuilder();
+    boolean inToken = false;
+    char quote = 0;
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (quote != 0) {
+        if (c == quote) quote = 0;
+        else token.append(c);
+      } else if (c == '"' || c == '\'') {
+        quote = c;
+        inToken = true;
+      } else if (Character.isWhitespace(c)) {
+        if (inToken) {
+          tokens.add(token.toString());
+          token.setLength(0);
+          inToken = false;
+        }
+      } else {
+        token.append(c);
+        inToken = true;
+      }
+    }
+    if (quote != 0) throw new IllegalArgumentException("Unterminated quote in: " + text);
+    if (inToken) tokens.add(token.toString());
+    return tokens;
+  }
+
+  /**
+   * Starts the daemon on standard input and output.
+   *
+   * <p>The only argument accepted is the default encoding of the source files (UTF-8 by default).
+   *
+   * @param args The command line arguments
+   *
+   * @throws IOException If thrown while reading or writing.
+   */
+  public static void main(String[] args) throws IOException {
+    Charset encoding = args.length > 0 ? Charset.forName(args[0]) : StandardCharsets.UTF_8;
+    XMLDocletDaemon daemon = new XMLDocletDaemon(encoding);
+    BufferedReader in = new BufferedReader(new InputStreamReader(System.in, Charset.defaultCharset()));
+    PrintWriter out = new PrintWriter(new OutputStreamWriter(System.out, Charset.defaultCharset()), true);
+    daemon.serve(in, out);
+  }
+
+  /**
+   * A reporter for the doclet options, which are only used for their names and number of arguments.
+   */
+  private static final class SilentReporter implements Reporter {
+
+    @Override
+    public void print(Diagnostic.Kind kind, String message) {
+    }
+
+    @Override
+    public void print(Diagnostic.Kind kind, DocTreePath path, String message) {
+    }
+
+    @Override
+    public void print(Diagnostic.Kind kind, Element element, String message) {
+    }
+
+  }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import javax.tools.DocumentationTool;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Runs the XML doclet in-process and hands the resulting nodes to the caller instead of saving them.
+ *
+ * <p>A read-only view of each class and package node is passed to the consumer as soon as it is
+ * built, so that no file is written and the XML does not need to be parsed again. For example:
+ * <pre>
+ * XMLDocletRunner runner = new XMLDocletRunner(StandardCharsets.UTF_8);
+ * runner.run(List.of("-sourcepath", "src/main/java", "org.example"), List.of(), node -&gt; {
+ *   System.out.println(node.getName() + " " + node.getAttribute("name"));
+ * }, null);
+ * </pre>
+ *
+ * <p>The options are the same as for the <code>javadoc</code> command, the options relating to the
+ * output files (<code>-d</code>, <code>-multiple</code>, etc.) are ignored.
+ *
+ * <p>The consumer is called on the thread calling {@link #run(List, List, Consumer, Writer)}.
+ * A runner reuses its file manager between runs, but must not be used by several threads at once.
+ * The source path and class path are reset before each run.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+public final class XMLDocletRunner {
+
+  /**
+   * The consumer of the doclet running on the current thread, if any.
+   */
+  static final ThreadLocal<Consumer<XMLNode>> CONSUMER = new ThreadLocal<>();
+
+  private final DocumentationTool tool;
+
+  private final StandardJavaFileManager fileManager;
+
+  /**
+   * @param encoding The default encoding of the source files.
+   */
+  public XMLDocletRunner(Charset encoding) {
+    this.tool = ToolProvider.getSystemDocumentationTool();
+    this.fileManager = this.tool.getStandardFileManager(null, null, encoding);
+  }
+
+  /**
+   * Runs the doclet and passes a view of the class and package nodes to the specified consumer.
+   *
+   * @param options  The javadoc options, including the names of the packages to document
+   * @param sources  The source files to document
+   * @param consumer Receives each class and package node
+   * @param out      Where the output of the tool is written, <code>System.err</code> if <code>null</code>
+   *
+   * @return <code>true</code> if the doclet completed successfully; <code>false</code> otherwise.
+   *
+   * @throws IOException If the locations of the file manager could not be reset.
+   */
+  public boolean run(List<String> options, List<File> sources, Consumer<XMLNodeView> consumer, @Nullable Writer out) throws IOException {
+    // Locations set by the previous run must not leak into this one
+    this.fileManager.setLocation(StandardLocation.SOURCE_PATH, null);
+    this.fileManager.setLocation(StandardLocation.CLASS_PATH, null);
+    Iterable<? extends JavaFileObject> units = sources.isEmpty()
+        ? Collections.emptyList()
+        : this.fileManager.getJavaFileObjectsFromFiles(sources);
+    DocumentationTool.DocumentationTask task = this.tool.getTask(out, this.fileManager, null, XMLDoclet.class, options, units);
+    CONSUMER.set(node -> consumer.accept(new XMLNodeView(node)));
+    try {
+      return task.call();
+    } finally {
+      CONSUMER.remove();
+    }
+  }
+
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Watches the source path and regenerates the documentation of the source files as they change.
+ *
+ * <p>The arguments are the options of the <code>javadoc</code> command followed by <code>--</code>
+ * and the packages or source files to document, for example:
+ * <pre>
+ * -sourcepath src/main/java -multiple -d build/xmldoc -- org.example
+ * </pre>
+ *
+ * <p>The documentation is generated once in full, then each time a source file under one of the
+ * <code>-sourcepath</code> roots is created or modified, the doclet is run again over the changed
+ * files only with the <code>-update</code> option so that the existing index is merged. The files
+ * of deleted source files are removed from the output and from the index.
+ *
+ * <p>Since the doclet runs in the same JVM each time, regenerating a few classes usually takes a
+ * fraction of a second. Only the <code>-multiple</code> output is supported and the
+ * <code>-usages</code> and <code>-hierarchy</code> options cannot be used, since they are not known
+ * when only part of the classes are regenerated.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+public final class XMLDocletWatcher {
+
+  /**
+   * How long to wait for more changes before regenerating, editors often write a file in several steps.
+   */
+  private static final long QUIET_PERIOD_MS = 50;
+
+  private final XMLDocletDaemon daemon;
+
+  private final List<String> options;
+
+  private final List<String> targets;
+
+  private final List<Path> roots = new ArrayList<>();
+
+  private final File output;
+
+  private final boolean subfolders;
+
+  private final Charset encoding;
+
+  private final PrintWriter out;
+
+  /**
+   * @param options The javadoc options
+   * @param targets The packages and source files to document initially
+   * @param out     Where the output of each run is written
+   */
+  public XMLDocletWatcher(List<String> options, List<String> targets, PrintWriter out) {
+    this.daemon = new XMLDocletDaemon(StandardCharsets.UTF_8);
+    this.options = options;
+    this.targets = targets;
+    this.out = out;
+    String sourcepath = getValue(options, "-sourcepath", "--source-path");
+    if (sourcepath == null) throw new IllegalArgumentException("The -sourcepath option is required");
+    for (String root : sourcepath.split(File.pathSeparator)) {
+      this.roots.add(Paths.get(root).toAbsolutePath().normalize());
+    }
+    if (!options.contains("-multiple")) throw new IllegalArgumentException("The -multiple option is required");
+    if (options.contains("-usages")) throw new IllegalArgumentException("The -usages option is not supported");
+    if (options.contains("-hierarchy")) throw new IllegalArgumentException("The -hierarchy option is not supported");
+    String d = getValue(options, "-d", null);
+    this.output = new File(d != null ? d : ".");
+    this.subfolders = options.contains("-subfolders");
+    String docencoding = getValue(options, "-docencoding", null);
+    this.encoding = docencoding != null ? Charset.forName(docencoding) : StandardCharsets.UTF_8;
+  }
+
+  /**
+   * Generates the documentation, then regenerates it as sources change until the thread is interrupted.
+   *
+   * @throws IOException If thrown while watching the files or writing the output.
+   */
+  public void watch() throws IOException {
+    rebuild();
+    try (WatchService service = FileSystems.getDefault().newWatchService()) {
+      for (Path root : this.roots) {
+        register(service, root);
+      }
+      this.out.println("Watching " + this.roots);
+      this.out.flush();
+      while (!Thread.currentThread().isInterrupted()) {
+        Set<Path> changed = new LinkedHashSet<>();
+        Set<Path> deleted = new LinkedHashSet<>();
+        boolean overflow;
+        try {
+          WatchKey key = service.take();
+          overflow = collect(service, key, changed, deleted);
+          while ((key = service.poll(QUIET_PERIOD_MS, TimeUnit.MILLISECONDS)) != null) {
+            overflow |= collect(service, key, changed, deleted);
+          }
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+        if (overflow) {
+          rebuild();
+        } else if (!changed.isEmpty() || !deleted.isEmpty()) {
+          update(changed, deleted);
+        }
+      }
+    }
+  }
+
+  /**
+   * Generates the documentation of all the targets.
+   */
+  private void rebuild() throws IOException {
+    List<String> arguments = new ArrayList<>(this.options);
+    arguments.addAll(this.targets);
+    long start = System.nanoTime();
+    boolean success = this.daemon.run(arguments, this.out);
+    report(success ? "Generated documentation" : "Failed to generate documentation", start);
+  }
+
+  /**
+   * Regenerates the documentation of the changed files and removes the output of the deleted ones.
+   */
+  private void update(Set<Path> changed, Set<Path> deleted) throws IOException {
+    long start = System.nanoTime();
+    for (Path source : deleted) {
+      removeOutput(source);
+    }
+    for (Path source : changed) {
+      removeOutput(source);
+    }
+    if (!changed.isEmpty()) {
+      List<String> arguments = new ArrayList<>(this.options);
+      arguments.add("-update");
+      for (Path source : changed) {
+        arguments.add(source.toString());
+      }
+      boolean success = this.daemon.run(arguments, this.out);
+      report((success ? "Updated " : "Failed to update ") + changed.size() + " file(s)", start);
+    } else {
+      try {
+        IndexFile.prune(this.output, this.encoding);
+      } catch (DocletException ex) {
+        this.out.println("error: " + ex.getMessage());
+      }
+      report("Removed " + deleted.size() + " file(s)", start);
+    }
+  }
+
+  /**
+   * Collects the source files which changed from the events of the specified key.
+   *
+   * @return <code>true</code> if events were lost; <code>false</code> otherwise.
+   */
+  private boolean collect(WatchService service, WatchKey key, Set<Path> changed, Set<Path> deleted) throws IOException {
+    boolean overflow = false;
+    Path dir = (Path) key.watchable();
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+        overflow = true;
+        continue;
+      }
+      Path path = dir.resolve((Path) event.context());
+      if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+        // Sources in new directories do not produce events of their own
+        register(service, path);
+        try (Stream<Path> files = Files.walk(path)) {
+          files.filter(XMLDocletWatcher::isSource).forEach(changed::add);
+        }
+      } else if (isSource(path)) {
+        if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE || !Files.exists(path)) {
+          changed.remove(path);
+          deleted.add(path);
+        } else {
+          deleted.remove(path);
+          changed.add(path);
+        }
+      }
+    }
+    key.reset();
+    return overflow;
+  }
+
+  /**
+   * Deletes the files generated for the types declared in the specified source file.
+   */
+  private void removeOutput(Path source) throws IOException {
+    String name = toQualifiedName(source);
+    if (name == null || name.endsWith("package-info") || name.endsWith("module-info")) return;
+    if (this.subfolders) {
+      Path file = this.output.toPath().resolve(name.replace('.', '/') + ".xml");
+      Files.deleteIfExists(file);
+      // Nested types are stored in a folder named after the enclosing type
+      Path nested = this.output.toPath().resolve(name.replace('.', '/'));
+      if (Files.isDirectory(nested)) {
+        try (Stream<Path> paths = Files.walk(nested)) {
+          for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+            Files.delete(p);
+          }
+        }
+      }
+    } else {
+      File[] files = this.output.listFiles((d, n) -> n.equals(name + ".xml") || (n.startsWith(name + ".") && n.endsWith(".xml")));
+      if (files == null) return;
+      for (File file : files) {
+        Files.deleteIfExists(file.toPath());
+      }
+    }
+  }
+
+  /**
+   * @return the qualified name of the type declared by the source file or <code>null</code> if outside the roots.
+   */
+  private @Nullable String toQualifiedName(Path source) {
+    for (Path root : this.roots) {
+      if (source.startsWith(root)) {
+        String relative = root.relativize(source).toString();
+        return relative.substring(0, relative.length() - ".java".length()).replace(File.separatorChar, '.');
+      }
+    }
+    return null;
+  }
+
+  private void report(String message, long start) {
+    this.out.println(message + " in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms");
+    this.out.flush();
+  }
+
+  /**
+   * Registers the specified directory and all its subdirectories.
+   */
+  private static void register(WatchService service, Path root) throws IOException {
+    Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+        dir.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  private static boolean isSource(Path path) {
+    return path.getFileName().toString().endsWith(".java");
+  }
+
+  /**
+   * @return the value of the last occurrence of the specified option.
+   */
+  private static @Nullable String getValue(List<String> options, String name, @Nullable String alias) {
+    String value = null;
+    for (int i = 0; i < options.size() - 1; i++) {
+      String option = options.get(i);
+      if (option.equals(name) || option.equals(alias)) {
+        value = options.get(i + 1);
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Starts watching with the specified arguments.
+   *
+   * @param args The javadoc options, followed by <code>--</code> and the packages or source files to document.
+   *
+   * @throws IOException If thrown while watching the files or writing the output.
+   */
+  public static void main(String[] args) throws IOException {
+    List<String> arguments = XMLDocletDaemon.expand(Arrays.asList(args));
+    int separator = arguments.indexOf("--");
+    if (separator < 0) {
+      System.err.println("Usage: XMLDocletWatcher <javadoc options> -- <packages or source files>");
+      System.exit(1);
+    }
+    List<String> options = arguments.subList(0, separator);
+    List<String> targets = arguments.subList(separator + 1, arguments.size());
+    PrintWriter out = new PrintWriter(new OutputStreamWriter(System.out, Charset.defaultCharset()), true);
+    try {
+      new XMLDocletWatcher(options, targets, out).watch();
+    } catch (IllegalArgumentException ex) {
+      System.err.println(ex.getMessage());
+      System.exit(1);
+    }
+  }
+
+}
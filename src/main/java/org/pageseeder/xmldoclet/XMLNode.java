@@ -15,12 +15,18 @@
  */
 package org.pageseeder.xmldoclet;
 
+import jdk.javadoc.doclet.Reporter;
 import org.eclipse.jdt.annotation.Nullable;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
 
 import javax.lang.model.element.Element;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
 import java.io.*;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -81,6 +87,16 @@ public final class XMLNode {
    */
   private final int line;
 
+  /**
+   * The serialized XML of this node when it was rendered previously, <code>null</code> otherwise.
+   */
+  private @Nullable String raw;
+
+  /**
+   * The number of nodes in the serialized XML.
+   */
+  private int rawSize;
+
   /**
    * Constructs the XMLNode.
    *
@@ -116,6 +132,35 @@ public final class XMLNode {
     this(name, null);
   }
 
+  /**
+   * Creates a node from its serialized XML.
+   *
+   * <p>The node is serialized exactly as specified, it has no children or content and its only
+   * attribute is its name. The XML is not indented again, so the node must only be serialized at the
+   * depth it was captured at.
+   *
+   * @param name The name of the element
+   * @param nameAttribute The value of the name attribute
+   * @param xml The XML of the node as returned by {@link #toString(String)}
+   * @param size The number of nodes in the XML
+   *
+   * @return the new node.
+   */
+  static XMLNode raw(String name, String nameAttribute, String xml, int size) {
+    XMLNode node = new XMLNode(name);
+    node.attribute("name", nameAttribute);
+    node.raw = xml;
+    node.rawSize = size;
+    return node;
+  }
+
+  /**
+   * @return The serialized XML of this node if it was created from it, <code>null</code> otherwise.
+   */
+  @Nullable String getRaw() {
+    return this.raw;
+  }
+
   /**
    * Adds an attribute to the node
    *
@@ -237,6 +282,74 @@ public final class XMLNode {
     return this.name;
   }
 
+  /**
+   * @return The attributes of the node (unmodifiable).
+   */
+  public Map<String, String> getAttributes() {
+    return Collections.unmodifiableMap(this.attributes);
+  }
+
+  /**
+   * @return The child nodes (unmodifiable).
+   */
+  public List<XMLNode> getChildren() {
+    return Collections.unmodifiableList(this.children);
+  }
+
+  /**
+   * Returns the content of the node.
+   *
+   * <p>The content is XML: text is escaped and markup is included verbatim.
+   *
+   * @return The content of the node or an empty string.
+   */
+  public String getContent() {
+    return this.content.toString();
+  }
+
+  /**
+   * @return The source element the node corresponds to, if any.
+   */
+  public @Nullable Element getElement() {
+    return this.doc;
+  }
+
+  /**
+   * @return The name of the element including the namespace prefix, if any.
+   */
+  String getQualifiedName() {
+    return this.namespacePrefix + this.name;
+  }
+
+  /**
+   * Reports this node as a complete document to the specified handler.
+   *
+   * <p>The events are the same as the ones reported when parsing the output of
+   * {@link #toString(String)}, so the handler can be a <code>TransformerHandler</code> to apply a
+   * stylesheet without serializing and parsing the XML.
+   *
+   * @param handler the handler receiving the SAX events.
+   *
+   * @throws SAXException if thrown by the handler or if the markup of a node is not well-formed.
+   */
+  public void toSAX(ContentHandler handler) throws SAXException {
+    new SAXReplay(handler, null).document(this);
+  }
+
+  /**
+   * Reports this node as a complete document to the specified handler.
+   *
+   * <p>The markup of a node which is not well-formed is reported as text with a warning.
+   *
+   * @param handler the handler receiving the SAX events.
+   * @param reporter the reporter for the markup which is not well-formed.
+   *
+   * @throws SAXException if thrown by the handler.
+   */
+  void toSAX(ContentHandler handler, Reporter reporter) throws SAXException {
+    new SAXReplay(handler, reporter).document(this);
+  }
+
   /**
    * Saves this XML node to the directory specified.
    *
@@ -249,6 +362,21 @@ public final class XMLNode {
    * @throws DocletException if the file could not be saved.
    */
   public void save(File dir, String name, Charset encoding, @Nullable String nsPrefix) throws DocletException {
+    save(dir, name, encoding, nsPrefix, RunStats.DISABLED);
+  }
+
+  /**
+   * Saves this XML node to the directory specified and records the statistics.
+   *
+   * @param dir  the directory to save this node to.
+   * @param name the name of the file
+   * @param encoding the character encoding used for the output.
+   * @param nsPrefix the namespace prefix to use for this node
+   * @param stats the statistics to update
+   *
+   * @throws DocletException if the file could not be saved.
+   */
+  void save(File dir, String name, Charset encoding, @Nullable String nsPrefix, RunStats stats) throws DocletException {
     String xmlDeclaration = "<?xml version=\"1.0\" encoding=\"" + encoding + "\"?>" + NEW_LINE;
 
     if (nsPrefix != null && !nsPrefix.isEmpty()) {
@@ -262,23 +390,107 @@ public final class XMLNode {
       if (!created) throw new DocletException(this.doc, "Unable to create directory "+dir.getAbsolutePath());
     }
 
+    SaveEvent event = new SaveEvent();
+    event.begin();
+
+    // Serialize
+    stats.begin(RunStats.Phase.SERIALIZE);
+    String xml = this.toString("");
+    stats.end(RunStats.Phase.SERIALIZE, name);
+
     // Write out to the file
     File file = new File(dir, name);
+    stats.begin(RunStats.Phase.IO);
     try (OutputStreamWriter out = new OutputStreamWriter(new BufferedOutputStream(new FileOutputStream(file)), encoding)) {
       out.write(xmlDeclaration);
-      out.write(this.toString(""));
+      out.write(xml);
     } catch (IOException ex) {
       throw new DocletException(this.doc, "Unable to save XML file: "+file.getAbsolutePath(), ex);
+    } finally {
+      stats.end(RunStats.Phase.IO, name);
+    }
+
+    event.end();
+    if (event.shouldCommit()) {
+      event.path = file.getPath();
+      event.bytes = file.length();
+      event.commit();
+    }
+
+    if (stats.isEnabled()) {
+      stats.add(RunStats.Counter.FILES, 1);
+      stats.add(RunStats.Counter.BYTES, file.length());
+      stats.add(RunStats.Counter.NODES, size());
+    }
+  }
+
+  /**
+   * Applies a stylesheet to this XML node and saves the result to the directory specified.
+   *
+   * @param dir  the directory to save the result to.
+   * @param name the name of the file
+   * @param handler the handler applying the stylesheet
+   * @param reporter the reporter for the markup which is not well-formed
+   * @param stats the statistics to update
+   *
+   * @throws DocletException if the stylesheet could not be applied or the file could not be saved.
+   */
+  void transform(File dir, String name, TransformerHandler handler, Reporter reporter, RunStats stats) throws DocletException {
+    if (!dir.exists()) {
+      boolean created = dir.mkdirs();
+      if (!created) throw new DocletException(this.doc, "Unable to create directory "+dir.getAbsolutePath());
+    }
+
+    SaveEvent event = new SaveEvent();
+    event.begin();
+
+    File file = new File(dir, name);
+    stats.begin(RunStats.Phase.TRANSFORM);
+    try (OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+      handler.setResult(new StreamResult(out));
+      this.toSAX(handler, reporter);
+    } catch (IOException | SAXException ex) {
+      throw new DocletException(this.doc, "Unable to transform XML file: "+file.getAbsolutePath(), ex);
+    } finally {
+      stats.end(RunStats.Phase.TRANSFORM, name);
+    }
+
+    event.end();
+    if (event.shouldCommit()) {
+      event.path = file.getPath();
+      event.bytes = file.length();
+      event.commit();
+    }
+
+    if (stats.isEnabled()) {
+      stats.add(RunStats.Counter.FILES, 1);
+      stats.add(RunStats.Counter.BYTES, file.length());
+      stats.add(RunStats.Counter.NODES, size());
+    }
+  }
+
+  /**
+   * @return the number of nodes in this tree including this node.
+   */
+  int size() {
+    if (this.raw != null) return this.rawSize;
+    int size = 1;
+    for (XMLNode child : this.children) {
+      size += child.size();
     }
+    return size;
   }
 
   /**
    * Converts the XML node to a String.
    *
+   * <p>The tabs are ignored for a node created from its serialized XML, which is returned as is.
+   *
    * @param tabs The tabs used for indentation.
    * @return the String representation of this node and its children.
    */
   public String toString(String tabs) {
+    if (this.raw != null) return this.raw;
     StringBuilder out = new StringBuilder();
 
     // Open element
@@ -329,7 +541,7 @@ public final class XMLNode {
    *
    * @return The encoded string.
    */
-  private static String encode(String text) {
+  static String encode(String text) {
     if (text.indexOf('<') >= 0) return text;
     else return encodeElement(text);
   }
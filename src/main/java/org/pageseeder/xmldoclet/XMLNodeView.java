@@ -0,0 +1,131 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import org.eclipse.jdt.annotation.Nullable;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+import javax.lang.model.element.Element;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A read-only view of an XML node and its descendants, handed to the consumers of
+ * {@link XMLDocletRunner} so that they cannot modify the nodes built by the doclet.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+public final class XMLNodeView {
+
+  private final XMLNode node;
+
+  /**
+   * @param node The node to view.
+   */
+  XMLNodeView(XMLNode node) {
+    this.node = node;
+  }
+
+  /**
+   * @return The name of the node.
+   */
+  public String getName() {
+    return this.node.getName();
+  }
+
+  /**
+   * Returns the specified attribute.
+   *
+   * @param name The name of the attribute.
+   * @return The value of the attribute or <code>null</code>.
+   */
+  public @Nullable String getAttribute(String name) {
+    return this.node.getAttribute(name);
+  }
+
+  /**
+   * @return The attributes of the node (unmodifiable).
+   */
+  public Map<String, String> getAttributes() {
+    return this.node.getAttributes();
+  }
+
+  /**
+   * @return A view of each child node (unmodifiable).
+   */
+  public List<XMLNodeView> getChildren() {
+    List<XMLNode> children = this.node.getChildren();
+    return new AbstractList<>() {
+
+      @Override
+      public XMLNodeView get(int index) {
+        return new XMLNodeView(children.get(index));
+      }
+
+      @Override
+      public int size() {
+        return children.size();
+      }
+    };
+  }
+
+  /**
+   * Returns the content of the node.
+   *
+   * <p>The content is XML: text is escaped and markup is included verbatim.
+   *
+   * @return The content of the node or an empty string.
+   */
+  public String getContent() {
+    return this.node.getContent();
+  }
+
+  /**
+   * @return The source element the node corresponds to, if any.
+   */
+  public @Nullable Element getElement() {
+    return this.node.getElement();
+  }
+
+  /**
+   * Reports the node as a complete document to the specified handler.
+   *
+   * @param handler the handler receiving the SAX events.
+   *
+   * @throws SAXException if thrown by the handler or if the markup of a node is not well-formed.
+   *
+   * @see XMLNode#toSAX(ContentHandler)
+   */
+  public void toSAX(ContentHandler handler) throws SAXException {
+    this.node.toSAX(handler);
+  }
+
+  /**
+   * Converts the node to a String.
+   *
+   * @param tabs The tabs used for indentation.
+   * @return the String representation of this node and its children.
+   */
+  public String toString(String tabs) {
+    return this.node.toString(tabs);
+  }
+
+}
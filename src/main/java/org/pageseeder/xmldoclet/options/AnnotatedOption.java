@@ -2,14 +2,14 @@ package org.pageseeder.xmldoclet.options;
 
 import jdk.javadoc.doclet.Reporter;
 
-import javax.lang.model.element.AnnotationMirror;
-import javax.lang.model.element.TypeElement;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Option to filter classes with the specified annotation.
  *
+ * <p>Only the annotations declared on the class itself match.
+ *
  * @author Christophe Lauret
  *
  * @version 1.0
@@ -64,20 +64,4 @@ public final class AnnotatedOption extends XMLDocletOptionBase {
     return !this.annotations.isEmpty();
   }
 
-  /**
-   * Filters the included set of classes by checking whether the specified class matches
-   * one of the annotations specified in this option.
-   *
-   * @param element     the class documentation.
-   * @return <code>true</code> if the class should be included; <code>false</code> otherwise.
-   */
-  public boolean matches(TypeElement element) {
-    if (this.annotations.isEmpty()) return true;
-    List<? extends AnnotationMirror> annotationMirrors = element.getAnnotationMirrors();
-    for (AnnotationMirror i : annotationMirrors) {
-      String name = i.getAnnotationType().asElement().toString();
-      if (this.annotations.contains(name)) return true;
-    }
-    return false;
-  }
 }
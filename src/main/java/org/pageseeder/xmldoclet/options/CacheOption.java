@@ -0,0 +1,65 @@
+package org.pageseeder.xmldoclet.options;
+
+import jdk.javadoc.doclet.Reporter;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Option to keep the rendered classes in a persistent cache shared by doclet runs.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+public final class CacheOption extends XMLDocletOptionBase {
+
+  private @Nullable File directory = null;
+
+  public CacheOption(Reporter reporter) {
+    super(reporter);
+  }
+
+  @Override
+  public int getArgumentCount() {
+    return 1;
+  }
+
+  @Override
+  public String getDescription() {
+    return "the directory of the cache of rendered classes shared by runs";
+  }
+
+  @Override
+  public Kind getKind() {
+    return Kind.STANDARD;
+  }
+
+  @Override
+  public List<String> getNames() {
+    return List.of("-cache");
+  }
+
+  @Override
+  public String getParameters() {
+    return "<directory>";
+  }
+
+  @Override
+  public boolean process(String option, List<String> arguments) {
+    this.directory = new File(arguments.get(0));
+    note("Using render cache: "+this.directory);
+    return true;
+  }
+
+  public boolean enabled() {
+    return this.directory != null;
+  }
+
+  public @Nullable File getDirectory() {
+    return this.directory;
+  }
+
+}
@@ -0,0 +1,76 @@
+package org.pageseeder.xmldoclet.options;
+
+import jdk.javadoc.doclet.Reporter;
+
+import java.util.List;
+
+/**
+ * Option to specify the maximum size of the cache of rendered classes.
+ *
+ * <p>Defaults to 256 MB.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+public final class CacheSizeOption extends XMLDocletOptionBase {
+
+  /**
+   * The maximum size in megabytes.
+   */
+  private long size = 256;
+
+  public CacheSizeOption(Reporter reporter) {
+    super(reporter);
+  }
+
+  @Override
+  public int getArgumentCount() {
+    return 1;
+  }
+
+  @Override
+  public String getDescription() {
+    return "the maximum size of the cache in megabytes, least recently used classes are removed first";
+  }
+
+  @Override
+  public Kind getKind() {
+    return Kind.STANDARD;
+  }
+
+  @Override
+  public List<String> getNames() {
+    return List.of("-cachesize");
+  }
+
+  @Override
+  public String getParameters() {
+    return "<megabytes>";
+  }
+
+  @Override
+  public boolean process(String option, List<String> arguments) {
+    String value = arguments.get(0);
+    try {
+      this.size = Long.parseLong(value);
+      if (this.size <= 0) {
+        error("Invalid cache size: "+value+" - must be a positive number of megabytes");
+        return false;
+      }
+    } catch (NumberFormatException ex) {
+      error("Invalid cache size: "+value+" - must be a positive number of megabytes");
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * @return the maximum size of the cache in bytes.
+   */
+  public long getBytes() {
+    return this.size * 1024 * 1024;
+  }
+
+}
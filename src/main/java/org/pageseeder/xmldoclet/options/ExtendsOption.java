@@ -2,14 +2,16 @@ package org.pageseeder.xmldoclet.options;
 
 import jdk.javadoc.doclet.Reporter;
 
-import javax.lang.model.element.TypeElement;
-import javax.lang.model.type.TypeMirror;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Option to filter classes extending the specified class.
  *
+ * <p>Classes match whether they extend the class directly or through another superclass, and type
+ * arguments are ignored, so "java.util.AbstractList" matches a class extending
+ * <code>java.util.ArrayList&lt;String&gt;</code>.
+ *
  * @author Christophe Lauret
  *
  * @version 1.0
@@ -30,7 +32,7 @@ public class ExtendsOption extends XMLDocletOptionBase {
 
   @Override
   public String getDescription() {
-    return "filter classes extending the specified class";
+    return "filter classes extending the specified class directly or indirectly, ignoring type arguments";
   }
 
   @Override
@@ -69,20 +71,4 @@ public class ExtendsOption extends XMLDocletOptionBase {
     return !this.superclasses.isEmpty();
   }
 
-  /**
-   * Indicates whether the specified class matches of the superclasses in this option.
-   *
-   * @param element the class element
-   * @return <code>true</code> if the class should be included; <code>false</code> otherwise.
-   *
-   * @see <a href="https://example.org">Example!</a>
-   *
-   * @throws NullPointerException Something <b>xxx</b>
-   */
-  public boolean matches(TypeElement element) throws NullPointerException {
-    if (this.superclasses.isEmpty()) return true;
-    TypeMirror superclass = element.getSuperclass();
-    return superclass != null && this.superclasses.contains(superclass.toString());
-  }
-
 }
@@ -0,0 +1,77 @@
+package org.pageseeder.xmldoclet.options;
+
+import jdk.javadoc.doclet.Reporter;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.util.List;
+
+/**
+ * Option to write the class hierarchy of the documented classes to a separate file.
+ *
+ * <p>The hierarchy is always written as "hierarchy.xml"; with the "text" format, it is also written
+ * as a compact adjacency list in "hierarchy.txt".
+ *
+ * <p>This option cannot be used with <code>-update</code>, since only the classes of the run are known.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+public final class HierarchyOption extends XMLDocletOptionBase {
+
+  /**
+   * The supported formats.
+   */
+  private static final List<String> FORMATS = List.of("xml", "text");
+
+  private @Nullable String format = null;
+
+  public HierarchyOption(Reporter reporter) {
+    super(reporter);
+  }
+
+  @Override
+  public int getArgumentCount() {
+    return 1;
+  }
+
+  @Override
+  public String getDescription() {
+    return "write the class hierarchy to hierarchy.xml, and also to hierarchy.txt with the text format";
+  }
+
+  @Override
+  public Kind getKind() {
+    return Kind.STANDARD;
+  }
+
+  @Override
+  public List<String> getNames() {
+    return List.of("-hierarchy");
+  }
+
+  @Override
+  public String getParameters() {
+    return "xml|text";
+  }
+
+  @Override
+  public boolean process(String option, List<String> arguments) {
+    String value = arguments.get(0);
+    if (!FORMATS.contains(value)) {
+      error("Invalid hierarchy format: "+value+" - must be one of "+String.join(", ", FORMATS));
+      return false;
+    }
+    this.format = value;
+    return true;
+  }
+
+  /**
+   * @return the format of the hierarchy file or <code>null</code> if it should not be written.
+   */
+  public @Nullable String getFormat() {
+    return this.format;
+  }
+
+}
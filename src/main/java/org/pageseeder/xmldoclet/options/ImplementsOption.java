@@ -2,14 +2,16 @@ package org.pageseeder.xmldoclet.options;
 
 import jdk.javadoc.doclet.Reporter;
 
-import javax.lang.model.element.TypeElement;
-import javax.lang.model.type.TypeMirror;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Option to filter classes implementing the specified class.
  *
+ * <p>Classes match whether they implement the interface directly or through a superclass or another
+ * interface, and type arguments are ignored, so "java.util.Collection" matches a class implementing
+ * <code>java.util.List&lt;String&gt;</code>.
+ *
  * @author Christophe Lauret
  *
  * @version 1.0
@@ -30,7 +32,7 @@ public class ImplementsOption extends XMLDocletOptionBase {
 
   @Override
   public String getDescription() {
-    return "filter classes implementing the specified interface";
+    return "filter classes implementing the specified interface directly or indirectly, ignoring type arguments";
   }
 
   @Override
@@ -74,20 +76,4 @@ public class ImplementsOption extends XMLDocletOptionBase {
     return !this.interfaces.isEmpty();
   }
 
-  /**
-   * Filters the included set of classes by checking whether the given class matches
-   * one of the specified qualified interface names.
-   *
-   * @param element the class documentation.
-   * @return <code>true</code> if the class should be included; <code>false</code> otherwise.
-   */
-  public boolean matches(TypeElement element) {
-    if (this.interfaces.isEmpty()) return true;
-    List<? extends TypeMirror> mirrors = element.getInterfaces();
-    for (TypeMirror i : mirrors) {
-      if (this.interfaces.contains(i.toString())) return true;
-    }
-    return false;
-  }
-
 }
@@ -0,0 +1,69 @@
+package org.pageseeder.xmldoclet.options;
+
+import jdk.javadoc.doclet.Reporter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Option to document only the classes and packages whose qualified name matches the specified pattern.
+ *
+ * <p>Patterns are matched against each segment of the name: <code>*</code> matches any part of a
+ * segment and <code>**</code> matches any number of segments. A pattern without a dot is matched
+ * against the last segment, for example <code>*Impl</code> matches the simple name of a class.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+public final class IncludeOption extends XMLDocletOptionBase {
+
+  private final List<String> patterns = new ArrayList<>();
+
+  public IncludeOption(Reporter reporter) {
+    super(reporter);
+  }
+
+  @Override
+  public int getArgumentCount() {
+    return 1;
+  }
+
+  @Override
+  public String getDescription() {
+    return "document only the classes and packages matching the specified pattern";
+  }
+
+  @Override
+  public Kind getKind() {
+    return Kind.STANDARD;
+  }
+
+  @Override
+  public List<String> getNames() {
+    return List.of("-include");
+  }
+
+  @Override
+  public String getParameters() {
+    return "<pattern>";
+  }
+
+  @Override
+  public boolean process(String option, List<String> arguments) {
+    String pattern = arguments.get(0).trim();
+    if (pattern.isEmpty() || pattern.startsWith(".") || pattern.endsWith(".") || pattern.contains("..")) {
+      error("Invalid include pattern: "+pattern+" - must be a qualified name with wildcards");
+      return false;
+    }
+    note("Including classes and packages matching: "+pattern);
+    this.patterns.add(pattern);
+    return true;
+  }
+
+  public List<String> getPatterns() {
+    return this.patterns;
+  }
+
+}
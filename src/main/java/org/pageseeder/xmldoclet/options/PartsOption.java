@@ -0,0 +1,112 @@
+package org.pageseeder.xmldoclet.options;
+
+import jdk.javadoc.doclet.Reporter;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Option to specify which parts of the documentation to generate.
+ *
+ * <p>The parts are specified as a comma-separated list, for example "signatures,parameters" to
+ * generate the fields, constructors and methods with their parameters but without any comment.
+ * Defaults to all the parts.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+public final class PartsOption extends XMLDocletOptionBase {
+
+  /**
+   * The parts of the documentation which can be left out.
+   */
+  public enum Part {
+
+    /** The fields, constructors and methods of classes */
+    SIGNATURES,
+
+    /** The doc comments, including the descriptions of return values, parameters and exceptions */
+    COMMENTS,
+
+    /** The annotations of classes and packages */
+    ANNOTATIONS,
+
+    /** The standard and custom block tags */
+    TAGS,
+
+    /** The see tags */
+    SEE,
+
+    /** The parameters of constructors and methods */
+    PARAMETERS,
+
+    /** The exceptions thrown by constructors and methods */
+    EXCEPTIONS;
+
+    @Override
+    public String toString() {
+      return name().toLowerCase(Locale.ROOT);
+    }
+  }
+
+  private Set<Part> parts = EnumSet.allOf(Part.class);
+
+  public PartsOption(Reporter reporter) {
+    super(reporter);
+  }
+
+  @Override
+  public int getArgumentCount() {
+    return 1;
+  }
+
+  @Override
+  public String getDescription() {
+    return "the comma-separated parts of the documentation to generate";
+  }
+
+  @Override
+  public Kind getKind() {
+    return Kind.STANDARD;
+  }
+
+  @Override
+  public List<String> getNames() {
+    return List.of("-parts");
+  }
+
+  @Override
+  public String getParameters() {
+    return "<parts>";
+  }
+
+  @Override
+  public boolean process(String option, List<String> arguments) {
+    String value = arguments.get(0);
+    Set<Part> parts = EnumSet.noneOf(Part.class);
+    for (String part : value.split(",")) {
+      String name = part.trim();
+      try {
+        parts.add(Part.valueOf(name.toUpperCase(Locale.ROOT)));
+      } catch (IllegalArgumentException ex) {
+        error("Invalid part: "+name+" - must be one of "+EnumSet.allOf(Part.class));
+        return false;
+      }
+    }
+    this.parts = parts;
+    note("Generating parts: "+parts);
+    return true;
+  }
+
+  /**
+   * @return the parts of the documentation to generate.
+   */
+  public Set<Part> getParts() {
+    return this.parts;
+  }
+
+}
@@ -0,0 +1,63 @@
+package org.pageseeder.xmldoclet.options;
+
+import jdk.javadoc.doclet.Reporter;
+
+import java.util.List;
+
+/**
+ * Option to resume a run which was interrupted instead of starting again.
+ *
+ * <p>Only applies when multiple files are used: the files written are recorded in a checkpoint in the
+ * output directory. The classes and packages listed in the checkpoint left by an interrupted run with
+ * this option are skipped if their file exists, and the index lists both the files written previously
+ * and the ones written by this run.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+public final class ResumeOption extends XMLDocletOptionBase {
+
+  private boolean enabled = false;
+
+  public ResumeOption(Reporter reporter) {
+    super(reporter);
+  }
+
+  @Override
+  public int getArgumentCount() {
+    return 0;
+  }
+
+  @Override
+  public String getDescription() {
+    return "Whether to write a checkpoint and resume an interrupted run from it (multiple files only).";
+  }
+
+  @Override
+  public Kind getKind() {
+    return Kind.STANDARD;
+  }
+
+  @Override
+  public List<String> getNames() {
+    return List.of("-resume");
+  }
+
+  @Override
+  public String getParameters() {
+    return "";
+  }
+
+  @Override
+  public boolean process(String option, List<String> arguments) {
+    this.enabled = true;
+    return true;
+  }
+
+  public boolean enabled() {
+    return this.enabled;
+  }
+
+}
@@ -0,0 +1,65 @@
+package org.pageseeder.xmldoclet.options;
+
+import jdk.javadoc.doclet.Reporter;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Option to write statistics about the doclet run as JSON to the specified file.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+public final class StatsOption extends XMLDocletOptionBase {
+
+  private @Nullable File file = null;
+
+  public StatsOption(Reporter reporter) {
+    super(reporter);
+  }
+
+  @Override
+  public int getArgumentCount() {
+    return 1;
+  }
+
+  @Override
+  public String getDescription() {
+    return "write the time and memory spent in each phase and the output counts as JSON";
+  }
+
+  @Override
+  public Kind getKind() {
+    return Kind.STANDARD;
+  }
+
+  @Override
+  public List<String> getNames() {
+    return List.of("-stats");
+  }
+
+  @Override
+  public String getParameters() {
+    return "<file>";
+  }
+
+  @Override
+  public boolean process(String option, List<String> arguments) {
+    this.file = new File(arguments.get(0));
+    note("Writing statistics to: "+this.file);
+    return true;
+  }
+
+  public boolean enabled() {
+    return this.file != null;
+  }
+
+  public @Nullable File getFile() {
+    return this.file;
+  }
+
+}
@@ -0,0 +1,82 @@
+package org.pageseeder.xmldoclet.options;
+
+import jdk.javadoc.doclet.Reporter;
+
+import java.util.List;
+
+/**
+ * Option to report a warning whenever a single taglet call takes longer than the specified threshold.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+public final class TagletThresholdOption extends XMLDocletOptionBase {
+
+  /**
+   * The threshold in milliseconds, 0 if disabled.
+   */
+  private long threshold = 0;
+
+  public TagletThresholdOption(Reporter reporter) {
+    super(reporter);
+  }
+
+  @Override
+  public int getArgumentCount() {
+    return 1;
+  }
+
+  @Override
+  public String getDescription() {
+    return "warn when a taglet call takes longer than the specified number of milliseconds and list the slow taglets at the end";
+  }
+
+  @Override
+  public Kind getKind() {
+    return Kind.STANDARD;
+  }
+
+  @Override
+  public List<String> getNames() {
+    return List.of("-tagletthreshold");
+  }
+
+  @Override
+  public String getParameters() {
+    return "<milliseconds>";
+  }
+
+  @Override
+  public boolean process(String option, List<String> arguments) {
+    String value = arguments.get(0);
+    try {
+      this.threshold = Long.parseLong(value);
+      if (this.threshold < 0) {
+        error("Invalid taglet threshold: "+value+" - must be a positive number of milliseconds");
+        return false;
+      }
+      note("Reporting taglet calls slower than "+this.threshold+"ms");
+    } catch (NumberFormatException ex) {
+      error("Invalid taglet threshold: "+value+" - must be a positive number of milliseconds");
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * @return <code>true</code> if a threshold was specified; <code>false</code> otherwise.
+   */
+  public boolean enabled() {
+    return this.threshold > 0;
+  }
+
+  /**
+   * @return the threshold in milliseconds, 0 if disabled.
+   */
+  public long getThreshold() {
+    return this.threshold;
+  }
+
+}
@@ -0,0 +1,65 @@
+package org.pageseeder.xmldoclet.options;
+
+import jdk.javadoc.doclet.Reporter;
+import org.eclipse.jdt.annotation.Nullable;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * Option to write a timeline of the doclet run to the specified file in the Chrome trace event format.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+public final class TraceOption extends XMLDocletOptionBase {
+
+  private @Nullable File file = null;
+
+  public TraceOption(Reporter reporter) {
+    super(reporter);
+  }
+
+  @Override
+  public int getArgumentCount() {
+    return 1;
+  }
+
+  @Override
+  public String getDescription() {
+    return "write a timeline of the run in the Chrome trace event format";
+  }
+
+  @Override
+  public Kind getKind() {
+    return Kind.STANDARD;
+  }
+
+  @Override
+  public List<String> getNames() {
+    return List.of("-trace");
+  }
+
+  @Override
+  public String getParameters() {
+    return "<file>";
+  }
+
+  @Override
+  public boolean process(String option, List<String> arguments) {
+    this.file = new File(arguments.get(0));
+    note("Writing trace to: "+this.file);
+    return true;
+  }
+
+  public boolean enabled() {
+    return this.file != null;
+  }
+
+  public @Nullable File getFile() {
+    return this.file;
+  }
+
+}
@@ -0,0 +1,61 @@
+package org.pageseeder.xmldoclet.options;
+
+import jdk.javadoc.doclet.Reporter;
+
+import java.util.List;
+
+/**
+ * Option to update the index of an existing output directory instead of replacing it.
+ *
+ * <p>Only applies when multiple files are used: the entries of the existing index are kept unless the
+ * corresponding file no longer exists, so that the doclet can be run over the changed sources only.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+public final class UpdateOption extends XMLDocletOptionBase {
+
+  private boolean enabled = false;
+
+  public UpdateOption(Reporter reporter) {
+    super(reporter);
+  }
+
+  @Override
+  public int getArgumentCount() {
+    return 0;
+  }
+
+  @Override
+  public String getDescription() {
+    return "Whether to merge the index with the existing one (multiple files only).";
+  }
+
+  @Override
+  public Kind getKind() {
+    return Kind.STANDARD;
+  }
+
+  @Override
+  public List<String> getNames() {
+    return List.of("-update");
+  }
+
+  @Override
+  public String getParameters() {
+    return "";
+  }
+
+  @Override
+  public boolean process(String option, List<String> arguments) {
+    this.enabled = true;
+    return true;
+  }
+
+  public boolean enabled() {
+    return this.enabled;
+  }
+
+}
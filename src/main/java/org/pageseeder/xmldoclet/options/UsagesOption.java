@@ -0,0 +1,63 @@
+package org.pageseeder.xmldoclet.options;
+
+import jdk.javadoc.doclet.Reporter;
+
+import java.util.List;
+
+/**
+ * Option to write the usages of the documented classes to a separate "usages.xml" file.
+ *
+ * <p>The usages list for each class the classes which extend or implement it and the methods and
+ * constructors which return or accept it.
+ *
+ * <p>This option cannot be used with <code>-update</code>, since only the classes of the run are known.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+public final class UsagesOption extends XMLDocletOptionBase {
+
+  private boolean enabled = false;
+
+  public UsagesOption(Reporter reporter) {
+    super(reporter);
+  }
+
+  @Override
+  public int getArgumentCount() {
+    return 0;
+  }
+
+  @Override
+  public String getDescription() {
+    return "Whether to write the usages of each class to a separate file.";
+  }
+
+  @Override
+  public Kind getKind() {
+    return Kind.STANDARD;
+  }
+
+  @Override
+  public List<String> getNames() {
+    return List.of("-usages");
+  }
+
+  @Override
+  public String getParameters() {
+    return "";
+  }
+
+  @Override
+  public boolean process(String option, List<String> arguments) {
+    this.enabled = true;
+    return true;
+  }
+
+  public boolean enabled() {
+    return this.enabled;
+  }
+
+}
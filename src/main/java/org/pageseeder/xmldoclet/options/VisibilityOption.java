@@ -0,0 +1,104 @@
+package org.pageseeder.xmldoclet.options;
+
+import jdk.javadoc.doclet.Reporter;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.Modifier;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Option to specify the minimum visibility of the classes and members to document.
+ *
+ * <p>Defaults to "private", that is all classes and members are documented.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+public final class VisibilityOption extends XMLDocletOptionBase {
+
+  /**
+   * The visibility levels from the most to the least restrictive.
+   */
+  private static final List<String> LEVELS = List.of("public", "protected", "package", "private");
+
+  private int level = LEVELS.size() - 1;
+
+  public VisibilityOption(Reporter reporter) {
+    super(reporter);
+  }
+
+  @Override
+  public int getArgumentCount() {
+    return 1;
+  }
+
+  @Override
+  public String getDescription() {
+    return "the minimum visibility of the classes and members to document";
+  }
+
+  @Override
+  public Kind getKind() {
+    return Kind.STANDARD;
+  }
+
+  @Override
+  public List<String> getNames() {
+    return List.of("-visibility");
+  }
+
+  @Override
+  public String getParameters() {
+    return "public|protected|package|private";
+  }
+
+  @Override
+  public boolean process(String option, List<String> arguments) {
+    String value = arguments.get(0);
+    int index = LEVELS.indexOf(value);
+    if (index < 0) {
+      error("Invalid visibility: "+value+" - must be one of "+String.join(", ", LEVELS));
+      return false;
+    }
+    this.level = index;
+    return true;
+  }
+
+  /**
+   * @return the minimum visibility as specified.
+   */
+  public String getVisibility() {
+    return LEVELS.get(this.level);
+  }
+
+  /**
+   * @return <code>true</code> if all classes and members are documented; <code>false</code> otherwise.
+   */
+  public boolean includesAll() {
+    return this.level == LEVELS.size() - 1;
+  }
+
+  /**
+   * Indicates whether the specified element is at least as visible as specified by this option.
+   *
+   * <p>Only the modifiers of the element itself are considered.
+   *
+   * @param element The class or member
+   *
+   * @return <code>true</code> if it should be documented; <code>false</code> otherwise.
+   */
+  public boolean accepts(Element element) {
+    return toLevel(element.getModifiers()) <= this.level;
+  }
+
+  private static int toLevel(Set<Modifier> modifiers) {
+    if (modifiers.contains(Modifier.PUBLIC)) return 0;
+    if (modifiers.contains(Modifier.PROTECTED)) return 1;
+    if (modifiers.contains(Modifier.PRIVATE)) return 3;
+    return 2;
+  }
+
+}
@@ -0,0 +1,101 @@
+package org.pageseeder.xmldoclet.options;
+
+import jdk.javadoc.doclet.Reporter;
+import org.eclipse.jdt.annotation.Nullable;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamSource;
+import java.io.File;
+import java.util.List;
+
+/**
+ * Option to apply an XSLT stylesheet to each document instead of saving the XML.
+ *
+ * <p>The stylesheet is compiled once when the option is processed and applied to the nodes directly,
+ * without serializing and parsing the XML.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+public final class XsltOption extends XMLDocletOptionBase {
+
+  private @Nullable SAXTransformerFactory factory = null;
+
+  private @Nullable Templates templates = null;
+
+  public XsltOption(Reporter reporter) {
+    super(reporter);
+  }
+
+  @Override
+  public int getArgumentCount() {
+    return 1;
+  }
+
+  @Override
+  public String getDescription() {
+    return "transform each document with the specified XSLT stylesheet";
+  }
+
+  @Override
+  public Kind getKind() {
+    return Kind.STANDARD;
+  }
+
+  @Override
+  public List<String> getNames() {
+    return List.of("-xslt");
+  }
+
+  @Override
+  public String getParameters() {
+    return "<stylesheet>";
+  }
+
+  @Override
+  public boolean process(String option, List<String> arguments) {
+    File stylesheet = new File(arguments.get(0));
+    if (!stylesheet.isFile()) {
+      error("XSLT stylesheet not found: "+stylesheet);
+      return false;
+    }
+    TransformerFactory tf = TransformerFactory.newInstance();
+    if (!tf.getFeature(SAXTransformerFactory.FEATURE)) {
+      error("The XSLT processor does not support SAX: "+tf.getClass().getName());
+      return false;
+    }
+    try {
+      this.factory = (SAXTransformerFactory) tf;
+      this.templates = tf.newTemplates(new StreamSource(stylesheet));
+      note("Transforming documents with: "+stylesheet);
+    } catch (TransformerConfigurationException ex) {
+      error("Unable to compile XSLT stylesheet "+stylesheet+": "+ex.getMessageAndLocation());
+      return false;
+    }
+    return true;
+  }
+
+  public boolean enabled() {
+    return this.templates != null;
+  }
+
+  /**
+   * Returns a new handler applying the stylesheet to the SAX events it receives.
+   *
+   * @return a new transformer handler or <code>null</code> if no stylesheet was specified.
+   *
+   * @throws TransformerConfigurationException If the handler could not be created.
+   */
+  public @Nullable TransformerHandler newTransformerHandler() throws TransformerConfigurationException {
+    SAXTransformerFactory tf = this.factory;
+    Templates t = this.templates;
+    return tf != null && t != null ? tf.newTransformerHandler(t) : null;
+  }
+
+}
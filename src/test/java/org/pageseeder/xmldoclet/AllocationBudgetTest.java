@@ -0,0 +1,112 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Checks that the bytes allocated per class processed stay within the budget of the JDK running the
+ * test.
+ *
+ * <p>The doclet is run several times over the <code>org.example</code> fixture with <code>-stats</code>,
+ * and the bytes allocated in the <code>class</code> phase (building the class nodes including their
+ * markup) and in the <code>save</code> phase (serialization and I/O) are divided by the number of
+ * classes. The lowest value over the measured runs is compared to the budget, so that class loading
+ * and JIT warm-up do not count.
+ *
+ * <p>Allocations depend on the JDK, so budgets are recorded per feature version and the test fails
+ * on a JDK without a budget. The system properties <code>classBudget</code> and
+ * <code>saveBudget</code> override the recorded budgets.
+ *
+ * <p>This test is tagged "allocation" and excluded from the <code>test</code> task, run it with
+ * <code>./gradlew allocationTest</code>, which passes the project directory as the
+ * <code>projectDir</code> system property.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+@Tag("allocation")
+public final class AllocationBudgetTest {
+
+  /**
+   * Bytes per class for the class and save phases by JDK feature version.
+   */
+  private static final Map<Integer, long[]> BUDGETS = Map.of(
+      17, new long[]{ 80_000, 64_000 });
+
+  private static final int WARMUP = 5;
+
+  private static final int RUNS = 5;
+
+  @Test
+  public void testAllocatedBytesPerClass(@TempDir Path dir) throws IOException {
+    int jdk = Runtime.version().feature();
+    long[] budget = BUDGETS.get(jdk);
+    String classBudget = System.getProperty("classBudget");
+    String saveBudget = System.getProperty("saveBudget");
+    if (budget == null && (classBudget == null || saveBudget == null)) {
+      fail("No allocation budget recorded for JDK " + jdk + ", run on JDK " + BUDGETS.keySet()
+          + " or specify both -PclassBudget= and -PsaveBudget=");
+    }
+    long maxClassBytes = classBudget != null ? Long.parseLong(classBudget) : budget[0];
+    long maxSaveBytes = saveBudget != null ? Long.parseLong(saveBudget) : budget[1];
+
+    File project = new File(System.getProperty("projectDir", System.getProperty("user.dir")));
+    File[] list = new File(project, "src/test/java/org/example").listFiles((d, name) -> name.endsWith(".java") && !"package-info.java".equals(name));
+    assertTrue(list != null && list.length > 0, "No sources found for the fixture");
+    List<File> files = new ArrayList<>(Arrays.asList(list));
+
+    File stats = dir.resolve("stats.json").toFile();
+    File output = dir.resolve("out").toFile();
+    List<String> options = List.of("-multiple", "-stats", stats.getPath());
+    DocletRunner runner = new DocletRunner();
+    for (int i = 0; i < WARMUP; i++) {
+      runner.run(files, output, options);
+    }
+    long classBytes = Long.MAX_VALUE;
+    long saveBytes = Long.MAX_VALUE;
+    for (int i = 0; i < RUNS; i++) {
+      DocletRunner.Result result = runner.run(files, output, options);
+      assertTrue(result.success, result.log);
+      RunStats run = RunStats.load(stats);
+      long classes = run.getCount(RunStats.Counter.CLASSES);
+      assertTrue(classes > 0, "No class processed");
+      classBytes = Math.min(classBytes, run.getAllocatedBytes(RunStats.Phase.CLASS) / classes);
+      saveBytes = Math.min(saveBytes, run.getAllocatedBytes(RunStats.Phase.SAVE) / classes);
+    }
+
+    System.out.printf("JDK %d: class %d bytes/class (budget %d), save %d bytes/class (budget %d)%n",
+        jdk, classBytes, maxClassBytes, saveBytes, maxSaveBytes);
+    assertTrue(classBytes <= maxClassBytes, "class phase allocated "+classBytes+" bytes/class, budget is "+maxClassBytes);
+    assertTrue(saveBytes <= maxSaveBytes, "save phase allocated "+saveBytes+" bytes/class, budget is "+maxSaveBytes);
+  }
+
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Generates a synthetic Java source corpus to run the doclet over.
+ *
+ * <p>Classes are spread over packages and form short inheritance chains within each package. The
+ * size of the comments, the number of annotations and the number of custom tags can be controlled
+ * independently, as well as the share of members which are documented at all.
+ *
+ * @author agent
+ */
+final class CorpusGenerator {
+
+  /**
+   * The name of the custom block tag used in the generated comments.
+   */
+  static final String CUSTOM_TAG = "todo";
+
+  private static final String[] SENTENCES = {
+      "Returns the value associated with the specified key in this registry.",
+      "This method is thread-safe and may be called from any thread without additional locking.",
+      "If the value is <code>null</code> the default value is used instead, see {@link java.util.Objects}.",
+      "The result is cached until the next call to {@code reset()} so repeated calls are cheap.",
+      "Implementations should <b>not</b> retain a reference to the arguments after returning.",
+      "Values greater than <i>max</i> &amp; lower than <i>min</i> are silently clamped.",
+  };
+
+  /**
+   * Annotations of distinct types so that they can be combined.
+   */
+  private static final String[] ANNOTATIONS = {
+      "@corpus.Marker",
+      "@SuppressWarnings({\"rawtypes\", \"unused\"})",
+      "@corpus.Info(name = \"generated\", priority = 2)",
+      "@Deprecated",
+  };
+
+  /** Number of classes to generate */
+  int classes = 100;
+
+  /** Number of members (fields, constructor and methods) per class */
+  int members = 10;
+
+  /** Number of sentences in each doc comment */
+  int sentences = 3;
+
+  /** Number of annotations on each class and member, at most 4 */
+  int annotations = 1;
+
+  /** Number of custom tags in each class comment */
+  int tags = 1;
+
+  /** Percentage of classes and members with a doc comment */
+  int documented = 100;
+
+  /** Number of classes in each package */
+  int classesPerPackage = 50;
+
+  /**
+   * Generates the corpus in the specified directory.
+   *
+   * @param dir The source directory
+   *
+   * @return The list of source files generated.
+   *
+   * @throws IOException If a file could not be written.
+   */
+  List<File> generate(File dir) throws IOException {
+    List<File> files = new ArrayList<>(this.classes + 2);
+    File base = new File(dir, "corpus");
+    if (!base.exists() && !base.mkdirs()) throw new IOException("Unable to create "+base);
+    files.add(write(new File(base, "Marker.java"), "package corpus;\n\n/** A marker annotation. */\npublic @interface Marker {}\n"));
+    files.add(write(new File(base, "Info.java"), "package corpus;\n\n/** An annotation with values. */\n"
+        + "public @interface Info {\n  String name();\n  int priority() default 0;\n}\n"));
+    for (int i = 0; i < this.classes; i++) {
+      String pkg = packageName(i);
+      File folder = new File(dir, pkg.replace('.', File.separatorChar));
+      if (!folder.exists() && !folder.mkdirs()) throw new IOException("Unable to create "+folder);
+      files.add(write(new File(folder, className(i) + ".java"), toSource(i)));
+    }
+    return files;
+  }
+
+  private static File write(File file, String source) throws IOException {
+    Files.write(file.toPath(), source.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+  /**
+   * @return a short description of the corpus.
+   */
+  String describe() {
+    return this.classes + " classes, " + this.members + " members, " + this.sentences + " sentences, "
+        + this.annotations + " annotations, " + this.tags + " tags, " + this.documented + "% documented";
+  }
+
+  private String packageName(int i) {
+    return String.format(Locale.ROOT, "corpus.p%04d", i / this.classesPerPackage);
+  }
+
+  private static String className(int i) {
+    return String.format(Locale.ROOT, "Class%06d", i);
+  }
+
+  private String toSource(int i) {
+    StringBuilder java = new StringBuilder();
+    java.append("package ").append(packageName(i)).append(";\n\n");
+    java.append("import java.util.List;\n");
+    java.append("import java.util.Map;\n\n");
+
+    // Class comment and declaration
+    if (isDocumented(i, 0)) {
+      java.append("/**\n");
+      appendSentences(java, " * ", i);
+      java.append(" *\n * @author Generated\n * @since 1.").append(i % 10).append('\n');
+      for (int t = 0; t < this.tags; t++) {
+        java.append(" * @").append(CUSTOM_TAG).append(" Item ").append(t).append(" to review\n");
+      }
+      java.append(" */\n");
+    }
+    appendAnnotations(java, "", i);
+    java.append("public class ").append(className(i));
+    if (i % this.classesPerPackage != 0 && i % 5 != 0) {
+      java.append(" extends ").append(className(i - 1));
+    }
+    if (i % 3 == 0) {
+      java.append(" implements java.io.Serializable");
+    }
+    java.append(" {\n\n");
+
+    // Members
+    int fields = this.members / 3;
+    for (int m = 0; m < this.members; m++) {
+      boolean documented = isDocumented(i, m + 1);
+      if (m < fields) {
+        if (documented) {
+          java.append("  /**\n");
+          appendSentences(java, "   * ", i + m);
+          java.append("   */\n");
+        }
+        appendAnnotations(java, "  ", i + m);
+        java.append("  protected Map<String, List<Integer>> field").append(m).append(";\n\n");
+      } else if (m == fields) {
+        if (documented) {
+          java.append("  /**\n");
+          appendSentences(java, "   * ", i + m);
+          java.append("   *\n   * @param name The name of the instance\n   */\n");
+        }
+        java.append("  public ").append(className(i)).append("(String name) {\n");
+        if (i % this.classesPerPackage != 0 && i % 5 != 0) java.append("    super(name);\n");
+        java.append("  }\n\n");
+      } else {
+        if (documented) {
+          java.append("  /**\n");
+          appendSentences(java, "   * ", i + m);
+          java.append("   *\n");
+          java.append("   * @param key   The key, must not be <code>null</code>\n");
+          java.append("   * @param count The number of values, see {@link #method").append(m).append("(String, int)}\n");
+          java.append("   * @return The list of values\n");
+          java.append("   * @throws IllegalArgumentException If the count is negative\n");
+          java.append("   */\n");
+        }
+        appendAnnotations(java, "  ", i + m);
+        java.append("  public List<String> method").append(m)
+            .append("(String key, int count) throws IllegalArgumentException {\n    return null;\n  }\n\n");
+      }
+    }
+    java.append("}\n");
+    return java.toString();
+  }
+
+  private boolean isDocumented(int i, int member) {
+    return (i * 31 + member * 17) % 100 < this.documented;
+  }
+
+  private void appendSentences(StringBuilder java, String prefix, int seed) {
+    for (int s = 0; s < this.sentences; s++) {
+      if (s % 3 == 0) {
+        java.append(prefix.substring(0, prefix.length() - 1)).append('\n');
+        java.append(prefix).append("<p>");
+      } else {
+        java.append(prefix);
+      }
+      java.append(SENTENCES[(seed + s) % SENTENCES.length]).append('\n');
+    }
+  }
+
+  private void appendAnnotations(StringBuilder java, String indent, int seed) {
+    for (int a = 0; a < Math.min(this.annotations, ANNOTATIONS.length); a++) {
+      java.append(indent).append(ANNOTATIONS[(seed + a) % ANNOTATIONS.length]).append('\n');
+    }
+  }
+
+}
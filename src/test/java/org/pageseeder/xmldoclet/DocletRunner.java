@@ -0,0 +1,172 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import com.sun.management.ThreadMXBean;
+
+import javax.tools.*;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Runs the XML doclet in-process with the system documentation tool and measures the run.
+ *
+ * @author agent
+ */
+final class DocletRunner {
+
+  /**
+   * The measurements of a single run.
+   */
+  static final class Result {
+
+    /** Whether the doclet completed successfully */
+    boolean success;
+
+    /** Wall time in nanoseconds */
+    long time;
+
+    /** Peak heap usage in bytes */
+    long peakHeap;
+
+    /** Bytes allocated by the thread running the doclet */
+    long allocated;
+
+    /** Number of files in the output directory */
+    long files;
+
+    /** Total size of the output in bytes */
+    long bytes;
+
+    /** The output of the tool, including diagnostics */
+    String log = "";
+
+    /**
+     * @return the allocation rate in MB per second.
+     */
+    double allocationRate() {
+      return this.time > 0 ? (this.allocated / 1_048_576.0) / (this.time / 1_000_000_000.0) : 0;
+    }
+  }
+
+  private final DocumentationTool tool = ToolProvider.getSystemDocumentationTool();
+
+  private final StandardJavaFileManager fileManager = this.tool.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+
+  /**
+   * Runs the doclet over the specified source files.
+   *
+   * @param sources The source files to document
+   * @param output  The output directory, cleared before the run
+   * @param options The doclet options, not including <code>-d</code>
+   *
+   * @return The measurements for the run.
+   *
+   * @throws IOException If the output directory could not be cleared or measured.
+   */
+  Result run(List<File> sources, File output, List<String> options) throws IOException {
+    return run(sources, output, options, true);
+  }
+
+  /**
+   * Runs the doclet over the specified source files.
+   *
+   * @param sources The source files to document
+   * @param output  The output directory
+   * @param options The doclet options, not including <code>-d</code>
+   * @param clear   Whether to clear the output directory before the run
+   *
+   * @return The measurements for the run.
+   *
+   * @throws IOException If the output directory could not be cleared or measured.
+   */
+  Result run(List<File> sources, File output, List<String> options, boolean clear) throws IOException {
+    if (clear) {
+      delete(output.toPath());
+    }
+    List<String> arguments = new ArrayList<>();
+    arguments.add("-quiet");
+    arguments.add("-d");
+    arguments.add(output.getPath());
+    arguments.addAll(options);
+
+    Iterable<? extends JavaFileObject> units = this.fileManager.getJavaFileObjectsFromFiles(sources);
+    StringWriter log = new StringWriter();
+    DocumentationTool.DocumentationTask task = this.tool.getTask(log, this.fileManager, null, XMLDoclet.class, arguments, units);
+
+    System.gc();
+    List<MemoryPoolMXBean> pools = heapPools();
+    for (MemoryPoolMXBean pool : pools) {
+      pool.resetPeakUsage();
+    }
+    ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+    long allocated = threads.getThreadAllocatedBytes(threadId);
+    long start = System.nanoTime();
+
+    Result result = new Result();
+    result.success = task.call();
+    result.time = System.nanoTime() - start;
+    result.allocated = threads.getThreadAllocatedBytes(threadId) - allocated;
+    for (MemoryPoolMXBean pool : pools) {
+      result.peakHeap += pool.getPeakUsage().getUsed();
+    }
+    result.log = log.toString();
+    if (output.exists()) {
+      try (Stream<Path> files = Files.walk(output.toPath())) {
+        files.filter(Files::isRegularFile).forEach(f -> {
+          result.files++;
+          result.bytes += f.toFile().length();
+        });
+      }
+    }
+    return result;
+  }
+
+  private static List<MemoryPoolMXBean> heapPools() {
+    List<MemoryPoolMXBean> pools = new ArrayList<>();
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+        pools.add(pool);
+      }
+    }
+    return pools;
+  }
+
+  /**
+   * Deletes the specified directory recursively.
+   */
+  static void delete(Path dir) throws IOException {
+    if (!Files.exists(dir)) return;
+    try (Stream<Path> paths = Files.walk(dir)) {
+      for (Path p : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(p);
+      }
+    }
+  }
+
+}
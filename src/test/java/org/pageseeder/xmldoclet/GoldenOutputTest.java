@@ -0,0 +1,415 @@
+/*
+ * Copyright 2010-2015 Allette Systems (Australia)
+ * http://www.allette.com.au
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.pageseeder.xmldoclet;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.w3c.dom.*;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the output of the doclet, with and without each performance option, is the same as the
+ * output of the baseline.
+ *
+ * <p>The golden files in <code>src/test/resources/golden</code> were generated from the
+ * <code>org.example</code> fixture by the doclet before any performance option was added, in single and
+ * <code>-multiple</code> output. The doclet is run over the fixture without any option and then with
+ * each performance mode, and each output is compared to the golden files.
+ *
+ * <p>Because the generated corpus is too large to check in, its output in each performance mode is
+ * compared to its output without any option instead. This test is tagged "corpus" and excluded from
+ * the <code>test</code> task, run it with <code>./gradlew goldenCorpusTest</code>.
+ *
+ * <p>The XML files are compared semantically: the order of attributes is ignored, whitespace is
+ * normalised and the creation date is ignored. Each difference is reported with the path of the
+ * offending element or attribute.
+ *
+ * @author agent
+ *
+ * @version 1.0
+ * @since 1.0
+ */
+public final class GoldenOutputTest {
+
+  /**
+   * The directory of the golden files, with a subdirectory for each layout.
+   */
+  private static final File GOLDEN = new File("src/test/resources/golden");
+
+  /**
+   * The sources of the fixture.
+   */
+  private static final File FIXTURE = new File("src/test/java/org/example");
+
+  /**
+   * The output layouts, each performance mode is compared to the baseline in each layout.
+   */
+  static final Map<String, List<String>> LAYOUTS = new LinkedHashMap<>();
+  static {
+    LAYOUTS.put("single", List.of());
+    LAYOUTS.put("multiple", List.of("-multiple"));
+  }
+
+  /**
+   * Options which must not change the output; <code>{dir}</code> is replaced by a directory for the
+   * mode, <code>{identity}</code> by the path to an identity stylesheet and <code>{cache}</code> by a
+   * render cache shared by all runs.
+   */
+  static final Map<String, List<String>> MODES = new LinkedHashMap<>();
+  static {
+    MODES.put("stats", List.of("-stats", "{dir}/stats.json"));
+    MODES.put("trace", List.of("-trace", "{dir}/trace.json"));
+    MODES.put("tagletthreshold", List.of("-tagletthreshold", "1000"));
+    MODES.put("xslt", List.of("-xslt", "{identity}"));
+    MODES.put("cache-cold", List.of("-cache", "{cache}"));
+    MODES.put("cache-warm", List.of("-cache", "{cache}"));
+    MODES.put("resume", List.of("-resume"));
+    MODES.put("visibility", List.of("-visibility", "private"));
+    MODES.put("parts", List.of("-parts", "signatures,comments,annotations,tags,see,parameters,exceptions"));
+  }
+
+  /**
+   * Custom taglets used by the fixture.
+   */
+  private static final List<String> TAGLETS = List.of(
+      "org.pageseeder.xmldoclet.tags.ErrorIdTaglet",
+      "org.pageseeder.xmldoclet.tags.GlossaryTaglet");
+
+  /**
+   * A stylesheet copying the document as is.
+   */
+  private static final String IDENTITY = "<xsl:stylesheet version=\"1.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\">\n"
+      + "  <xsl:template match=\"@*|node()\"><xsl:copy><xsl:apply-templates select=\"@*|node()\"/></xsl:copy></xsl:template>\n"
+      + "</xsl:stylesheet>\n";
+
+  /**
+   * The maximum number of differences reported per comparison.
+   */
+  private static final int MAX = 20;
+
+  private final DocletRunner runner = new DocletRunner();
+
+  private final List<String> differences = new ArrayList<>();
+
+  private final DocumentBuilder builder;
+
+  @TempDir
+  Path dir;
+
+  public GoldenOutputTest() throws Exception {
+    DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(false);
+    this.builder = factory.newDocumentBuilder();
+  }
+
+  @Test
+  public void testFixture() throws Exception {
+    List<File> sources = listSources(FIXTURE);
+    for (Map.Entry<String, List<String>> layout : LAYOUTS.entrySet()) {
+      String prefix = "fixture-" + layout.getKey();
+      File golden = new File(GOLDEN, layout.getKey());
+      List<String> options = options(layout.getValue());
+      File baseline = new File(this.dir.toFile(), prefix + "-baseline");
+      run(sources, baseline, options);
+      compare(golden, baseline);
+      checkModes(sources, prefix, golden, options);
+    }
+    checkResume(sources, new File(GOLDEN, "multiple"), options(LAYOUTS.get("multiple")));
+    assertNoDifference();
+  }
+
+  @Tag("corpus")
+  @Test
+  public void testCorpus() throws Exception {
+    CorpusGenerator generator = new CorpusGenerator();
+    generator.classes = Integer.parseInt(System.getProperty("goldenClasses", "200"));
+    generator.annotations = 3;
+    generator.documented = 80;
+    List<File> sources = generator.generate(new File(this.dir.toFile(), "src"));
+    for (Map.Entry<String, List<String>> layout : LAYOUTS.entrySet()) {
+      String prefix = "corpus-" + layout.getKey();
+      List<String> options = options(layout.getValue());
+      File baseline = new File(this.dir.toFile(), prefix + "-baseline");
+      run(sources, baseline, options);
+      checkModes(sources, prefix, baseline, options);
+    }
+    assertNoDifference();
+  }
+
+  /**
+   * Runs the doclet in each performance mode and compares the output to the expected files.
+   */
+  private void checkModes(List<File> sources, String prefix, File expected, List<String> options) throws Exception {
+    File root = this.dir.toFile();
+    File identity = new File(root, "identity.xsl");
+    Files.write(identity.toPath(), IDENTITY.getBytes(StandardCharsets.UTF_8));
+    File cache = new File(root, "cache");
+    for (Map.Entry<String, List<String>> mode : MODES.entrySet()) {
+      File output = new File(root, prefix + "-" + mode.getKey());
+      List<String> modeOptions = new ArrayList<>(options);
+      for (String option : mode.getValue()) {
+        modeOptions.add(option.replace("{dir}", output.getPath() + "-meta")
+            .replace("{identity}", identity.getPath())
+            .replace("{cache}", cache.getPath()));
+      }
+      run(sources, output, modeOptions);
+      compare(expected, output);
+    }
+  }
+
+  /**
+   * Simulates a run interrupted after writing the first half of the files and resumes it.
+   */
+  private void checkResume(List<File> sources, File expected, List<String> options) throws Exception {
+    File output = new File(this.dir.toFile(), "fixture-multiple-resume-interrupted");
+    List<String> resumeOptions = new ArrayList<>(options);
+    resumeOptions.add("-resume");
+
+    // A directory in place of the index makes the run fail before the checkpoint is deleted
+    File index = new File(output, IndexFile.NAME);
+    Files.createDirectories(index.toPath());
+    DocletRunner.Result interrupted = this.runner.run(sources, output, resumeOptions, false);
+    assertTrue(!interrupted.success && new File(output, Checkpoint.NAME).exists(), "The run was not interrupted");
+    Files.delete(index.toPath());
+
+    // Remove the second half of the files in the order of the index
+    List<Element> references = elements(this.builder.parse(new File(expected, IndexFile.NAME)).getDocumentElement());
+    for (int i = references.size() / 2; i < references.size(); i++) {
+      Files.delete(new File(output, references.get(i).getAttribute("xlink:href")).toPath());
+    }
+
+    DocletRunner.Result result = this.runner.run(sources, output, resumeOptions, false);
+    assertTrue(result.success, result.log);
+    assertTrue(result.log.contains("Resuming: " + (references.size() / 2) + " files already written"), result.log);
+    compare(expected, output);
+
+    // A checkpoint written with other options is ignored
+    Files.delete(index.toPath());
+    Files.createDirectories(index.toPath());
+    this.runner.run(sources, output, resumeOptions, false);
+    Files.delete(index.toPath());
+    List<String> otherOptions = new ArrayList<>(resumeOptions);
+    otherOptions.addAll(List.of("-xslt", new File(this.dir.toFile(), "identity.xsl").getPath()));
+    DocletRunner.Result other = this.runner.run(sources, output, otherOptions, false);
+    assertTrue(other.success && other.log.contains("Checkpoint ignored"), other.log);
+    compare(expected, output);
+  }
+
+  private List<String> options(List<String> layout) {
+    List<String> options = new ArrayList<>(List.of("-tag", "banner", "-tag", "verb", "-tag", CorpusGenerator.CUSTOM_TAG + ":a:To do"));
+    for (String taglet : TAGLETS) {
+      options.add("-taglet");
+      options.add(taglet);
+    }
+    options.addAll(layout);
+    return options;
+  }
+
+  private void run(List<File> sources, File output, List<String> options) throws IOException {
+    DocletRunner.Result result = this.runner.run(sources, output, options);
+    assertTrue(result.success, () -> "Doclet failed with options " + options + "\n" + result.log);
+  }
+
+  private void assertNoDifference() {
+    assertTrue(this.differences.isEmpty(), () -> this.differences.size() + " differences\n" + String.join("\n", this.differences));
+  }
+
+  /**
+   * Compares all the XML files in the specified directories.
+   */
+  private void compare(File expectedDir, File actualDir) throws Exception {
+    SortedSet<String> expected = listXML(expectedDir);
+    SortedSet<String> actual = listXML(actualDir);
+    for (String path : expected) {
+      if (!actual.contains(path)) {
+        report(actualDir, path, "file missing");
+      }
+    }
+    for (String path : actual) {
+      if (!expected.contains(path)) {
+        report(actualDir, path, "unexpected file");
+      } else {
+        int before = this.differences.size();
+        Element a = this.builder.parse(new File(expectedDir, path)).getDocumentElement();
+        Element b = this.builder.parse(new File(actualDir, path)).getDocumentElement();
+        compare(actualDir.getName() + File.separator + path, a, b, "/" + a.getTagName());
+        if (this.differences.size() - before >= MAX) {
+          this.differences.add("  ... more differences in " + path);
+        }
+      }
+    }
+  }
+
+  /**
+   * Compares two elements recursively.
+   */
+  private void compare(String file, Element expected, Element actual, String path) {
+    if (this.differences.size() >= MAX * 10) return;
+    if (!expected.getTagName().equals(actual.getTagName())) {
+      difference(file, path, "element <" + expected.getTagName() + "> expected but found <" + actual.getTagName() + ">");
+      return;
+    }
+    Map<String, String> a = attributes(expected);
+    Map<String, String> b = attributes(actual);
+    for (Map.Entry<String, String> att : a.entrySet()) {
+      String value = b.get(att.getKey());
+      if (value == null) {
+        difference(file, path + "/@" + att.getKey(), "attribute missing, expected \"" + att.getValue() + "\"");
+      } else if (!value.equals(att.getValue())) {
+        difference(file, path + "/@" + att.getKey(), "expected \"" + att.getValue() + "\" but found \"" + value + "\"");
+      }
+    }
+    for (String name : b.keySet()) {
+      if (!a.containsKey(name)) {
+        difference(file, path + "/@" + name, "unexpected attribute \"" + b.get(name) + "\"");
+      }
+    }
+    List<org.w3c.dom.Node> x = children(expected);
+    List<org.w3c.dom.Node> y = children(actual);
+    Map<String, Integer> positions = new HashMap<>();
+    for (int i = 0; i < Math.max(x.size(), y.size()); i++) {
+      org.w3c.dom.Node n = i < x.size() ? x.get(i) : null;
+      org.w3c.dom.Node m = i < y.size() ? y.get(i) : null;
+      String step = step(n != null ? n : m, positions);
+      if (n == null) {
+        difference(file, path + "/" + step, "unexpected " + describe(m));
+      } else if (m == null) {
+        difference(file, path + "/" + step, "missing " + describe(n));
+      } else if (n.getNodeType() == org.w3c.dom.Node.ELEMENT_NODE && m.getNodeType() == org.w3c.dom.Node.ELEMENT_NODE) {
+        compare(file, (Element) n, (Element) m, path + "/" + step);
+      } else if (n.getNodeType() != m.getNodeType() || !normalize(n.getNodeValue()).equals(normalize(m.getNodeValue()))) {
+        difference(file, path + "/" + step, "expected " + describe(n) + " but found " + describe(m));
+      }
+    }
+  }
+
+  private void difference(String file, String path, String message) {
+    this.differences.add(file + ": " + path + ": " + message);
+  }
+
+  private void report(File dir, String path, String message) {
+    this.differences.add(dir.getName() + File.separator + path + ": " + message);
+  }
+
+  /**
+   * @return the attributes of the element, ignoring the creation date.
+   */
+  private static Map<String, String> attributes(Element element) {
+    Map<String, String> attributes = new TreeMap<>();
+    NamedNodeMap map = element.getAttributes();
+    for (int i = 0; i < map.getLength(); i++) {
+      Attr att = (Attr) map.item(i);
+      if ("meta".equals(element.getTagName()) && "created".equals(att.getName())) continue;
+      attributes.put(att.getName(), normalize(att.getValue()));
+    }
+    return attributes;
+  }
+
+  /**
+   * @return the child elements and the non-whitespace text, merging adjacent text and CDATA sections.
+   */
+  private static List<org.w3c.dom.Node> children(Element element) {
+    List<org.w3c.dom.Node> children = new ArrayList<>();
+    StringBuilder text = new StringBuilder();
+    NodeList list = element.getChildNodes();
+    for (int i = 0; i < list.getLength(); i++) {
+      org.w3c.dom.Node n = list.item(i);
+      short type = n.getNodeType();
+      if (type == org.w3c.dom.Node.TEXT_NODE || type == org.w3c.dom.Node.CDATA_SECTION_NODE) {
+        text.append(n.getNodeValue());
+      } else if (type == org.w3c.dom.Node.ELEMENT_NODE) {
+        addText(element, text, children);
+        children.add(n);
+      }
+    }
+    addText(element, text, children);
+    return children;
+  }
+
+  /**
+   * @return the child elements other than "meta".
+   */
+  private static List<Element> elements(Element element) {
+    List<Element> elements = new ArrayList<>();
+    for (org.w3c.dom.Node n : children(element)) {
+      if (n.getNodeType() == org.w3c.dom.Node.ELEMENT_NODE && !"meta".equals(((Element) n).getTagName())) {
+        elements.add((Element) n);
+      }
+    }
+    return elements;
+  }
+
+  private static void addText(Element element, StringBuilder text, List<org.w3c.dom.Node> children) {
+    if (!normalize(text.toString()).isEmpty()) {
+      children.add(element.getOwnerDocument().createTextNode(text.toString()));
+    }
+    text.setLength(0);
+  }
+
+  /**
+   * @return the XPath step for the node, using the name attribute when available.
+   */
+  private static String step(org.w3c.dom.Node node, Map<String, Integer> positions) {
+    if (node.getNodeType() != org.w3c.dom.Node.ELEMENT_NODE) {
+      int position = positions.merge("text()", 1, Integer::sum);
+      return "text()[" + position + "]";
+    }
+    Element element = (Element) node;
+    String name = element.getTagName();
+    int position = positions.merge(name, 1, Integer::sum);
+    String attribute = element.getAttribute("name");
+    return attribute.isEmpty() ? name + "[" + position + "]" : name + "[@name='" + attribute + "']";
+  }
+
+  private static String describe(org.w3c.dom.Node node) {
+    if (node.getNodeType() == org.w3c.dom.Node.ELEMENT_NODE) return "element <" + ((Element) node).getTagName() + ">";
+    String text = normalize(node.getNodeValue());
+    return "text \"" + (text.length() > 60 ? text.substring(0, 60) + "..." : text) + "\"";
+  }
+
+  private static String normalize(String text) {
+    return text.replaceAll("\\s+", " ").trim();
+  }
+
+  private static List<File> listSources(File dir) throws IOException {
+    File[] files = dir.listFiles((d, name) -> name.endsWith(".java"));
+    if (files == null || files.length == 0) throw new IOException("No sources found in " + dir);
+    return Arrays.asList(files);
+  }
+
+  private static SortedSet<String> listXML(File dir) throws IOException {
+    Path root = dir.toPath();
+    try (Stream<Path> files = Files.walk(root)) {
+      return files.filter(p -> p.toString().endsWith(".xml"))
+          .map(p -> root.relativize(p).toString())
+          .collect(Collectors.toCollection(TreeSet::new));
+    }
+  }
+
+}
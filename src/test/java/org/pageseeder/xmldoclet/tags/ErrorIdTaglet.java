@@ -2,14 +2,14 @@ package org.pageseeder.xmldoclet.tags;
 
 import com.sun.source.doctree.DocTree;
 import com.sun.source.doctree.UnknownBlockTagTree;
-import jdk.javadoc.doclet.Taglet;
+import org.pageseeder.xmldoclet.ThreadSafeTaglet;
 
 import javax.lang.model.element.Element;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Set;
 
-public class ErrorIdTaglet implements Taglet {
+public class ErrorIdTaglet implements ThreadSafeTaglet {
 
   @Override
   public Set<Location> getAllowedLocations() {